@@ -0,0 +1,474 @@
+package mini_project.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal split into numbered segment files, with group commit. Both the
+ * library's write-ahead log and the task store are written through it.
+ *
+ * Appenders encode their record straight into a shared buffer. A single flusher
+ * thread writes the whole buffer with one write call and, depending on the fsync
+ * policy, one force call, so many appends share the cost of a single fsync. Once a
+ * segment has grown past its size limit, or {@link #roll()} is called, the segment is
+ * forced whatever the policy, the next one is started and the sealed segment number
+ * is reported. Only the segment being written can therefore be torn by a crash.
+ *
+ * Segments are named {@code <name>-<number>.log}. Record layout: int payload length,
+ * int CRC32 of the payload, payload.
+ */
+public class Journal implements Closeable {
+
+    public enum FsyncPolicy {
+        // a record is on disk once sync() returns for its ticket, appends that arrive together share one fsync
+        ALWAYS,
+        // appends return immediately, the flusher forces the file at most once per interval
+        INTERVAL,
+        // never force until a segment is sealed, the OS decides when data reaches the disk
+        NEVER
+    }
+
+    /** Writes one record payload. */
+    public interface Record {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /** Reads one record payload whose checksum has already been verified. */
+    public interface Reader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    private static final int MAX_RECORD = 1 << 20;
+
+    private final Path dir;
+    private final String name;
+    private final FsyncPolicy policy;
+    private final long intervalNanos;
+    private final long segmentBytes;
+    private final LongConsumer sealed;
+    private final Object ioLock;
+    private final Thread flusher;
+
+    // guarded by ioLock
+    private FileChannel channel;
+    private long segmentSize;
+    private volatile long segment;
+    // guarded by this
+    private Buffer pending;
+    private Buffer spare;
+    private long appended;
+    private long durable;
+    // appended since the current segment was started
+    private long records;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * @param name         file name prefix of the segments
+     * @param segment      number of the first segment to write; an existing one is appended to
+     * @param segmentBytes size after which a segment is sealed and the next one started,
+     *                     {@link Long#MAX_VALUE} to only seal on {@link #roll()}
+     * @param sealed       told the number of every segment that was sealed, on the flusher
+     *                     thread or the caller of {@link #roll()}
+     */
+    public Journal(Path dir, String name, long segment, FsyncPolicy policy, long intervalMillis,
+                   long segmentBytes, LongConsumer sealed) throws IOException {
+        this.dir = dir;
+        this.name = name;
+        this.policy = policy;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.segmentBytes = segmentBytes;
+        this.sealed = sealed;
+        this.ioLock = new Object();
+        this.segment = segment;
+        this.channel = open(segmentPath(dir, name, segment));
+        this.segmentSize = channel.size();
+        this.pending = new Buffer();
+        this.spare = new Buffer();
+        this.flusher = new Thread(this::flushLoop, name + "-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public static Path segmentPath(Path dir, String name, long segment) {
+        return dir.resolve(name + "-" + segment + ".log");
+    }
+
+    /** Numbers of the segments of the journal called {@code name} in {@code dir}. */
+    public static TreeSet<Long> segments(Path dir, String name) throws IOException {
+        return numbered(dir, name + "-", ".log");
+    }
+
+    /** Numbers N of the files in {@code dir} named prefix + N + suffix, lowest first. */
+    public static TreeSet<Long> numbered(Path dir, String prefix, String suffix) throws IOException {
+        TreeSet<Long> numbers = new TreeSet<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(file -> file.startsWith(prefix) && file.endsWith(suffix))
+                    .forEach(file -> {
+                        try {
+                            numbers.add(Long.parseLong(file.substring(prefix.length(), file.length() - suffix.length())));
+                        } catch (NumberFormatException e) {
+                            // not one of ours
+                        }
+                    });
+        }
+        return numbers;
+    }
+
+    /**
+     * Forces the entries of {@code dir}, so a file created or renamed in it survives a
+     * crash. Platforms that cannot open a directory for this are left to the OS.
+     */
+    public static void forceDirectory(Path dir) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException | UnsupportedOperationException e) {
+            // e.g. Windows, where a directory cannot be opened as a channel
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /** Number of the segment being written. */
+    public long segment() {
+        return segment;
+    }
+
+    /** Records appended since the current segment was started. */
+    public synchronized long recordCount() {
+        return records;
+    }
+
+    /**
+     * Queues the record for the flusher and returns at once. Under
+     * {@link FsyncPolicy#ALWAYS} pass the returned ticket to {@link #sync(long)} to wait
+     * until the record is on disk; callers that append under a lock of their own should
+     * do that after releasing it, so appends from many threads can share one fsync.
+     *
+     * @return the record's ticket, tickets grow with every append
+     */
+    public long append(Record record) throws IOException {
+        synchronized (this) {
+            checkOpen();
+            pending.record(record);
+            records++;
+            notifyAll();
+            return ++appended;
+        }
+    }
+
+    /**
+     * Under {@link FsyncPolicy#ALWAYS} waits until every record up to {@code ticket} is
+     * on disk; under the other policies returns at once.
+     */
+    public void sync(long ticket) throws IOException {
+        if (policy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        synchronized (this) {
+            while (durable < ticket) {
+                if (failure != null) {
+                    throw new IOException("Journal failed", failure);
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for fsync", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Seals the current segment even if it is not full yet. Everything appended before
+     * the call ends up in the sealed segment.
+     *
+     * @return the number of the sealed segment
+     */
+    public long roll() throws IOException {
+        long rolled;
+        synchronized (ioLock) {
+            flushPending(true);
+            rolled = startNextSegment();
+        }
+        sealed.accept(rolled);
+        return rolled;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (ioLock) {
+            flushPending(true);
+            channel.close();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw new IOException("Journal failed", failure);
+        }
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+    }
+
+    private void flushLoop() {
+        long waitMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(intervalNanos));
+        long lastForce = System.nanoTime();
+        boolean dirty = false;
+        while (true) {
+            synchronized (this) {
+                while (pending.size() == 0 && !closed) {
+                    if (dirty && System.nanoTime() - lastForce >= intervalNanos) {
+                        break;
+                    }
+                    try {
+                        wait(waitMillis);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            boolean force = policy == FsyncPolicy.ALWAYS ||
+                    (policy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= intervalNanos);
+            long rolled = -1;
+            synchronized (ioLock) {
+                try {
+                    flushPending(force);
+                    if (segmentSize >= segmentBytes) {
+                        rolled = startNextSegment();
+                    }
+                } catch (IOException e) {
+                    synchronized (this) {
+                        failure = e;
+                        notifyAll();
+                    }
+                    return;
+                }
+            }
+            if (force) {
+                lastForce = System.nanoTime();
+            }
+            dirty = policy == FsyncPolicy.INTERVAL && !force;
+            if (rolled >= 0) {
+                sealed.accept(rolled);
+            }
+        }
+    }
+
+    // caller holds ioLock
+    private void flushPending(boolean force) throws IOException {
+        Buffer batch;
+        long upTo;
+        synchronized (this) {
+            batch = pending;
+            pending = spare;
+            spare = batch;
+            upTo = appended;
+        }
+        segmentSize += batch.writeTo(channel);
+        if (force) {
+            channel.force(false);
+        }
+        synchronized (this) {
+            batch.reset();
+            durable = upTo;
+            notifyAll();
+        }
+    }
+
+    // caller holds ioLock and has flushed; a sealed segment is always forced, whatever the policy,
+    // so recovery can treat a torn segment that is not the last one as corruption
+    private long startNextSegment() throws IOException {
+        long rolled = segment;
+        channel.force(false);
+        FileChannel next = open(segmentPath(dir, name, rolled + 1));
+        channel.close();
+        channel = next;
+        segmentSize = 0;
+        segment = rolled + 1;
+        synchronized (this) {
+            records = 0;
+        }
+        return rolled;
+    }
+
+    /**
+     * Hands every intact record of the file to {@code reader}, stopping at the first
+     * torn or corrupt one.
+     *
+     * @return the length of the intact prefix of the file
+     */
+    public static long read(Path file, Reader reader) throws IOException {
+        long validLength = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CRC32 crc = new CRC32();
+            Payload payload = new Payload();
+            DataInputStream fields = new DataInputStream(payload);
+            Chunk chunk = new Chunk(channel);
+            while (chunk.fill(8)) {
+                int length = chunk.getInt(0);
+                int checksum = chunk.getInt(4);
+                if (length <= 0 || length > MAX_RECORD || !chunk.fill(8 + length)) {
+                    break;
+                }
+                crc.reset();
+                crc.update(chunk.bytes, chunk.start + 8, length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                payload.wrap(chunk.bytes, chunk.start + 8, length);
+                reader.read(fields);
+                chunk.start += 8 + length;
+                validLength += 8 + length;
+            }
+        }
+        return validLength;
+    }
+
+    // a window of the file read in large blocks, records are parsed straight out of the array
+    private static final class Chunk {
+        private final FileChannel channel;
+        private byte[] bytes;
+        private int start;
+        private int end;
+
+        Chunk(FileChannel channel) {
+            this.channel = channel;
+            this.bytes = new byte[1 << 20];
+        }
+
+        // makes sure the window holds at least n bytes from start, false at the end of the file
+        boolean fill(int n) throws IOException {
+            if (end - start >= n) {
+                return true;
+            }
+            if (n > bytes.length) {
+                bytes = Arrays.copyOfRange(bytes, start, start + Math.max(n, bytes.length * 2));
+            } else {
+                System.arraycopy(bytes, start, bytes, 0, end - start);
+            }
+            end -= start;
+            start = 0;
+            while (end < n) {
+                int read = channel.read(ByteBuffer.wrap(bytes, end, bytes.length - end));
+                if (read < 0) {
+                    return false;
+                }
+                end += read;
+            }
+            return true;
+        }
+
+        int getInt(int offset) {
+            int at = start + offset;
+            return (bytes[at] << 24) | ((bytes[at + 1] & 0xFF) << 16) | ((bytes[at + 2] & 0xFF) << 8) | (bytes[at + 3] & 0xFF);
+        }
+    }
+
+    /** Frames records in place and exposes the backing array, so a batch is written without copying it. */
+    public static final class Buffer extends ByteArrayOutputStream {
+        private final DataOutputStream out;
+        private final CRC32 crc;
+
+        public Buffer() {
+            super(1 << 16);
+            this.out = new DataOutputStream(this);
+            this.crc = new CRC32();
+        }
+
+        public void record(Record record) throws IOException {
+            int start = count;
+            // header placeholder, filled in once the payload length is known
+            out.writeLong(0);
+            try {
+                record.writeTo(out);
+            } catch (IOException | RuntimeException e) {
+                count = start;
+                throw e;
+            }
+            int length = count - start - 8;
+            if (length > MAX_RECORD) {
+                count = start;
+                throw new IOException("Journal record of " + length + " bytes is too large");
+            }
+            crc.reset();
+            crc.update(buf, start + 8, length);
+            putInt(start, length);
+            putInt(start + 4, (int) crc.getValue());
+        }
+
+        private void putInt(int at, int value) {
+            buf[at] = (byte) (value >>> 24);
+            buf[at + 1] = (byte) (value >>> 16);
+            buf[at + 2] = (byte) (value >>> 8);
+            buf[at + 3] = (byte) value;
+        }
+
+        public long writeTo(FileChannel channel) throws IOException {
+            ByteBuffer view = ByteBuffer.wrap(buf, 0, count);
+            while (view.hasRemaining()) {
+                channel.write(view);
+            }
+            return count;
+        }
+    }
+
+    // lets one DataInputStream decode every record of a file
+    private static final class Payload extends ByteArrayInputStream {
+        Payload() {
+            super(new byte[0]);
+        }
+
+        void wrap(byte[] body, int offset, int length) {
+            this.buf = body;
+            this.pos = offset;
+            this.count = offset + length;
+            this.mark = offset;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package mini_project.library_management_system;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hands events to a delegate on a background thread, so a slow listener (console,
+ * metrics, remote sink) no longer runs inside the library's locks.
+ *
+ * Events keep their order. When the queue is full the mutating thread waits for room
+ * rather than dropping events. {@link #close()} delivers everything queued before it.
+ */
+public class AsyncLibraryListener implements LibraryListener, Closeable {
+    private static final Runnable STOP = () -> { };
+
+    private final LibraryListener delegate;
+    private final BlockingQueue<Runnable> queue;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public AsyncLibraryListener(LibraryListener delegate) {
+        this(delegate, 8192);
+    }
+
+    public AsyncLibraryListener(LibraryListener delegate, int capacity) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.worker = new Thread(this::deliver, "library-listener");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        enqueue(() -> delegate.bookAdded(book));
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        enqueue(() -> delegate.bookRemoved(book));
+    }
+
+    @Override
+    public void userAdded(User user) {
+        enqueue(() -> delegate.userAdded(user));
+    }
+
+    @Override
+    public void userRemoved(User user) {
+        enqueue(() -> delegate.userRemoved(user));
+    }
+
+    @Override
+    public void bookBorrowed(User user, Book book) {
+        enqueue(() -> delegate.bookBorrowed(user, book));
+    }
+
+    @Override
+    public void bookReturned(User user, Book book) {
+        enqueue(() -> delegate.bookReturned(user, book));
+    }
+
+    @Override
+    public void holdPlaced(User user, Book book) {
+        enqueue(() -> delegate.holdPlaced(user, book));
+    }
+
+    @Override
+    public void holdCancelled(User user, Book book) {
+        enqueue(() -> delegate.holdCancelled(user, book));
+    }
+
+    @Override
+    public void loanOverdue(Loan loan) {
+        enqueue(() -> delegate.loanOverdue(loan));
+    }
+
+    @Override
+    public void message(String text) {
+        enqueue(() -> delegate.message(text));
+    }
+
+    private void enqueue(Runnable event) {
+        if (closed) {
+            // late events are delivered inline instead of being lost
+            event.run();
+            return;
+        }
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            event.run();
+        }
+    }
+
+    private void deliver() {
+        while (true) {
+            Runnable event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (event == STOP) {
+                return;
+            }
+            try {
+                event.run();
+            } catch (RuntimeException e) {
+                System.err.println("Listener failed: " + e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(STOP);
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // events that raced with close landed behind STOP
+        Runnable event;
+        while ((event = queue.poll()) != null) {
+            event.run();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package mini_project.library_management_system;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs library commands from a script instead of the interactive menu, one command per
+ * line with {@code |} separated arguments:
+ *
+ * <pre>
+ * ADD_BOOK|title|author|isbn      REMOVE_BOOK|isbn
+ * ADD_USER|name|id                REMOVE_USER|id
+ * BORROW|userId|isbn              RETURN|userId|isbn
+ * SEARCH|query                    FIND_BOOK|isbn
+ * FIND_USER|id                    LIST_AVAILABLE
+ * LIST_BORROWED                   LIST_OVERDUE
+ * COMPLETE|prefix|k               FUZZY|query|maxEdits
+ * TOP_BORROWED|k                  TOP_SEARCHED|k
+ * FIND_BOOKS|isbn|isbn|...
+ * HOLD|userId|isbn                CANCEL_HOLD|userId|isbn
+ * </pre>
+ *
+ * Command names are case-insensitive, blank lines and lines starting with {@code #} are
+ * skipped. Commands use the library's silent operations and every result line goes
+ * through one buffered writer, so a large script is not throttled by console flushes.
+ */
+public class BatchRunner {
+    private final Library library;
+
+    public BatchRunner(Library library) {
+        this.library = library;
+    }
+
+    public BatchResult run(Reader input, Writer output) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input, 1 << 16);
+        BufferedWriter out = output instanceof BufferedWriter ? (BufferedWriter) output : new BufferedWriter(output, 1 << 16);
+        long start = System.nanoTime();
+        long commands = 0;
+        long errors = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            commands++;
+            if (!execute(line, out)) {
+                errors++;
+                out.write("Line " + lineNumber + ": invalid command: " + line);
+                out.newLine();
+            }
+        }
+        out.flush();
+        return new BatchResult(commands, errors, System.nanoTime() - start);
+    }
+
+    /**
+     * Runs one command line and writes its result lines; also used by {@link LibraryServer}.
+     *
+     * @return false when the command is unknown or has the wrong number of arguments
+     */
+    boolean execute(String line, BufferedWriter out) throws IOException {
+        String[] args = line.split("\\|", -1);
+        for (int i = 0; i < args.length; i++) {
+            args[i] = args[i].trim();
+        }
+        String command = args[0].toUpperCase(Locale.ROOT);
+        switch (command) {
+            case "ADD_BOOK" -> {
+                if (args.length != 4) {
+                    return false;
+                }
+                Book book = new Book(args[1], args[2], args[3]);
+                println(out, library.insertBook(book)
+                        ? "Added book: " + book.getTitle()
+                        : "A book with ISBN " + book.getISBN() + " already exists.");
+            }
+            case "REMOVE_BOOK" -> {
+                if (args.length != 2) {
+                    return false;
+                }
+                Book book = library.findBook(args[1]);
+                println(out, book != null && library.deleteBook(book)
+                        ? "Removed book: " + book.getTitle()
+                        : "Book not found: " + args[1]);
+            }
+            case "ADD_USER" -> {
+                if (args.length != 3) {
+                    return false;
+                }
+                User user = new User(args[1], args[2]);
+                println(out, library.insertUser(user)
+                        ? "Added user: " + user.getName()
+                        : "A user with Id " + user.getId() + " already exists.");
+            }
+            case "REMOVE_USER" -> {
+                if (args.length != 2) {
+                    return false;
+                }
+                User user = library.findUser(args[1]);
+                println(out, user != null && library.deleteUser(user)
+                        ? "Removed user: " + user.getName()
+                        : "User not found: " + args[1]);
+            }
+            case "BORROW", "RETURN" -> {
+                if (args.length != 3) {
+                    return false;
+                }
+                User user = library.findUser(args[1]);
+                Book book = library.findBook(args[2]);
+                if (user == null) {
+                    println(out, "User not found: " + args[1]);
+                } else if (book == null) {
+                    println(out, "Book not found: " + args[2]);
+                } else if (command.equals("BORROW")) {
+                    println(out, library.borrowBook(user, book).isSuccess()
+                            ? user.getName() + " has borrowed: " + book.getTitle()
+                            : "Sorry, " + book.getTitle() + " is not available for borrowing.");
+                } else {
+                    println(out, library.returnBook(user, book).isSuccess()
+                            ? user.getName() + " has returned: " + book.getTitle()
+                            : user.getName() + " did not borrow: " + book.getTitle());
+                }
+            }
+            case "HOLD", "CANCEL_HOLD" -> {
+                if (args.length != 3) {
+                    return false;
+                }
+                User user = library.findUser(args[1]);
+                Book book = library.findBook(args[2]);
+                if (user == null) {
+                    println(out, "User not found: " + args[1]);
+                } else if (book == null) {
+                    println(out, "Book not found: " + args[2]);
+                } else if (command.equals("HOLD")) {
+                    println(out, switch (library.reserveBook(user, book)) {
+                        case SUCCESS -> user.getName() + " has borrowed: " + book.getTitle();
+                        case HOLD_PLACED -> user.getName() + " is in line for: " + book.getTitle();
+                        default -> user.getName() + " already has or is waiting for: " + book.getTitle();
+                    });
+                } else {
+                    println(out, library.cancelHold(user, book)
+                            ? user.getName() + " cancelled the hold on: " + book.getTitle()
+                            : user.getName() + " has no hold on: " + book.getTitle());
+                }
+            }
+            case "SEARCH" -> {
+                if (args.length != 2) {
+                    return false;
+                }
+                for (Book book : library.searchBooks(args[1])) {
+                    println(out, book.toString());
+                }
+            }
+            case "FIND_BOOK" -> {
+                if (args.length != 2) {
+                    return false;
+                }
+                Book book = library.findBook(args[1]);
+                println(out, book != null ? book.toString() : "Book not found: " + args[1]);
+            }
+            case "FIND_BOOKS" -> {
+                if (args.length < 2) {
+                    return false;
+                }
+                List<String> isbns = Arrays.asList(args).subList(1, args.length);
+                Map<String, Book> found = library.findBooks(isbns);
+                for (String isbn : isbns) {
+                    Book book = found.get(isbn);
+                    println(out, book != null ? book.toString() : "Book not found: " + isbn);
+                }
+            }
+            case "FIND_USER" -> {
+                if (args.length != 2) {
+                    return false;
+                }
+                User user = library.findUser(args[1]);
+                println(out, user != null ? user.toString() : "User not found: " + args[1]);
+            }
+            case "LIST_AVAILABLE", "LIST_BORROWED" -> {
+                if (args.length != 1) {
+                    return false;
+                }
+                for (Book book : command.equals("LIST_AVAILABLE") ? library.availableBooks() : library.borrowedBooks()) {
+                    println(out, book.toString());
+                }
+            }
+            case "COMPLETE" -> {
+                if (args.length != 3 || parseCount(args[2]) < 0) {
+                    return false;
+                }
+                for (String completion : library.autocomplete(args[1], parseCount(args[2]))) {
+                    println(out, completion);
+                }
+            }
+            case "FUZZY" -> {
+                if (args.length != 3 || parseCount(args[2]) < 0) {
+                    return false;
+                }
+                for (Book book : library.fuzzySearch(args[1], parseCount(args[2]))) {
+                    println(out, book.toString());
+                }
+            }
+            case "TOP_BORROWED" -> {
+                if (args.length != 2 || parseCount(args[1]) < 0) {
+                    return false;
+                }
+                for (Book book : library.mostBorrowed(parseCount(args[1]))) {
+                    println(out, book.toString());
+                }
+            }
+            case "TOP_SEARCHED" -> {
+                if (args.length != 2 || parseCount(args[1]) < 0) {
+                    return false;
+                }
+                for (PopularityTracker.Entry entry : library.mostSearched(parseCount(args[1]))) {
+                    println(out, entry.getKey() + "|" + entry.getCount());
+                }
+            }
+            case "LIST_OVERDUE" -> {
+                if (args.length != 1) {
+                    return false;
+                }
+                for (Loan loan : library.overdueLoans()) {
+                    println(out, loan.toString());
+                }
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // -1 for anything that is not a non-negative number
+    private static int parseCount(String value) {
+        try {
+            return Math.max(-1, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void println(BufferedWriter out, String text) throws IOException {
+        out.write(text);
+        out.newLine();
+    }
+
+    public static class BatchResult {
+        private final long commands;
+        private final long errors;
+        private final long elapsedNanos;
+
+        BatchResult(long commands, long errors, long elapsedNanos) {
+            this.commands = commands;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getCommands() {
+            return commands;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        public double getCommandsPerSecond() {
+            return elapsedNanos == 0 ? 0 : commands * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "BatchResult{" +
+                    "commands=" + commands +
+                    ", errors=" + errors +
+                    ", elapsedMs=" + getElapsedMillis() +
+                    ", commandsPerSec=" + String.format("%.0f", getCommandsPerSecond()) +
+                    '}';
+        }
+    }
+}
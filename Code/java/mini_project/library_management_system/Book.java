@@ -1,60 +1,177 @@
 package mini_project.library_management_system;
 
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 public class Book {
+    private static final int AVAILABLE = 0;
+    private static final int BORROWED = 1;
+    private static final AtomicIntegerFieldUpdater<Book> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Book.class, "state");
+
     private String title;
     private String author;
     private String ISBN;
-    private Boolean isAvailable;
+    // only changed through a CAS on STATE, so two borrowers can never both win
+    private volatile int state;
+    // the library cataloguing this book and its slot there, told about availability changes
+    private volatile Library library;
+    private volatile int slot = -1;
+    // set while the fields live in a CompactCatalog record instead of the strings above
+    private volatile CompactCatalog packed;
+    private int record;
+    // bumped by every pack and unpack, so a reader notices a book that left and came back to the same record
+    private int version;
 
     public Book(String title, String author, String ISBN) {
         this.title = title;
         this.author = author;
         this.ISBN = ISBN;
-        this.isAvailable = true;
+        this.state = AVAILABLE;
     }
 
     //getters
     public String getTitle() {
-        return this.title;
+        return field(CompactCatalog.TITLE);
     }
 
     public String getAuthor() {
-        return this.author;
+        return field(CompactCatalog.AUTHOR);
     }
 
     public String getISBN() {
-        return this.ISBN;
+        return field(CompactCatalog.ISBN);
+    }
+
+    // reads without a lock; the re-check retries when the book was packed or unpacked meanwhile
+    private String field(int field) {
+        while (true) {
+            CompactCatalog catalog = packed;
+            int seen = version;
+            int at = record;
+            String value;
+            if (catalog != null) {
+                value = catalog.get(at, field);
+            } else if (field == CompactCatalog.TITLE) {
+                value = title;
+            } else if (field == CompactCatalog.AUTHOR) {
+                value = author;
+            } else {
+                value = ISBN;
+            }
+            VarHandle.acquireFence();
+            if (packed == catalog && version == seen && record == at) {
+                return value;
+            }
+        }
     }
 
-    public Boolean isAvailable() {
-        return this.isAvailable;
+    public boolean isAvailable() {
+        return this.state == AVAILABLE;
+    }
+
+    public boolean tryBorrow() {
+        if (STATE.compareAndSet(this, AVAILABLE, BORROWED)) {
+            notifyLibrary();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryReturn() {
+        if (STATE.compareAndSet(this, BORROWED, AVAILABLE)) {
+            notifyLibrary();
+            return true;
+        }
+        return false;
     }
 
     public void borrow() {
-        if (isAvailable) {
-            isAvailable = false;
-            System.out.println("Book borrowed successfully.");
+        if (tryBorrow()) {
+            message("Book borrowed successfully.");
         } else {
-            System.out.println("Sorry, this book is not available.");
+            message("Sorry, this book is not available.");
         }
     }
 
     public void returnBook() {
-        if (!isAvailable) {
-            isAvailable = true;
-            System.out.println("Book returned successfully.");
+        if (tryReturn()) {
+            message("Book returned successfully.");
         } else {
-            System.out.println("This book is already in the library.");
+            message("This book is already in the library.");
+        }
+    }
+
+    boolean isPacked() {
+        return packed != null;
+    }
+
+    // the record in this catalog, or -1 when the book is not packed there
+    int packedRecord(CompactCatalog catalog) {
+        return packed == catalog ? record : -1;
+    }
+
+    // the catalog has written the fields to the record; the strings are dropped only once readers go there
+    void pack(CompactCatalog catalog, int record) {
+        this.record = record;
+        this.version++;
+        this.packed = catalog;
+        VarHandle.storeStoreFence();
+        this.title = null;
+        this.author = null;
+        this.ISBN = null;
+    }
+
+    void unpack(String title, String author, String ISBN) {
+        this.title = title;
+        this.author = author;
+        this.ISBN = ISBN;
+        this.version++;
+        this.packed = null;
+        // the catalog frees the record next, readers that see it freed must also see the book unpacked
+        VarHandle.storeStoreFence();
+    }
+
+    Library getLibrary() {
+        return library;
+    }
+
+    void setLibrary(Library library) {
+        this.library = library;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    // goes to the owning library's listeners, straight to the console for a book outside any library
+    void message(String text) {
+        Library owner = library;
+        if (owner != null) {
+            owner.message(text);
+        } else {
+            System.out.println(text);
+        }
+    }
+
+    private void notifyLibrary() {
+        Library owner = library;
+        if (owner != null) {
+            owner.availabilityChanged(this);
         }
     }
 
     @Override
     public String toString() {
         return "Book{" +
-        "title='" + title + '\'' +
-        ", author='" + author + '\'' +
-        ", ISBN='" + ISBN + '\'' +
-        ", isAvailable=" + isAvailable +
+        "title='" + getTitle() + '\'' +
+        ", author='" + getAuthor() + '\'' +
+        ", ISBN='" + getISBN() + '\'' +
+        ", isAvailable=" + isAvailable() +
         '}';
     }
     
@@ -0,0 +1,194 @@
+package mini_project.library_management_system;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dense book slots plus an availability bit per slot.
+ *
+ * add/remove change the layout and must be serialized by the caller. sync runs
+ * lock-free from any thread after a book's state changed: it sets the bit to the
+ * state of whichever book currently sits in the slot and re-checks, so a bit
+ * written from a stale read is always repaired by the last writer.
+ */
+class BookSlots {
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    // pages are only ever appended, so a page reference stays valid across growth
+    private volatile Page[] pages;
+    private volatile int size;
+    private final LongAdder available;
+
+    BookSlots() {
+        this.pages = new Page[0];
+        this.available = new LongAdder();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int countAvailable() {
+        return (int) available.sum();
+    }
+
+    void add(Book book) {
+        int slot = size;
+        if ((slot >> PAGE_SHIFT) == pages.length) {
+            Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+            grown[pages.length] = new Page();
+            pages = grown;
+        }
+        setBook(slot, book);
+        book.setSlot(slot);
+        size = slot + 1;
+        sync(slot);
+    }
+
+    // moves the last book into the freed slot to keep the slots dense
+    void remove(Book book) {
+        int slot = book.getSlot();
+        int last = size - 1;
+        book.setSlot(-1);
+        if (slot != last) {
+            Book moved = getBook(last);
+            setBook(slot, moved);
+            moved.setSlot(slot);
+        }
+        setBook(last, null);
+        size = last;
+        sync(slot);
+        sync(last);
+    }
+
+    void sync(Book book) {
+        int slot;
+        do {
+            slot = book.getSlot();
+            if (slot < 0) {
+                return;
+            }
+            sync(slot);
+        } while (book.getSlot() != slot);
+    }
+
+    private void sync(int slot) {
+        while (true) {
+            Book book = getBook(slot);
+            boolean value = book != null && book.isAvailable();
+            setBit(slot, value);
+            if (getBook(slot) == book && (book == null || book.isAvailable() == value)) {
+                return;
+            }
+        }
+    }
+
+    SlotIterator iterator(boolean wantAvailable) {
+        return new SlotIterator(wantAvailable, 0);
+    }
+
+    SlotIterator iterator(boolean wantAvailable, int fromSlot) {
+        return new SlotIterator(wantAvailable, fromSlot);
+    }
+
+    private Book getBook(int slot) {
+        return pages[slot >> PAGE_SHIFT].books.get(slot & (PAGE_SIZE - 1));
+    }
+
+    private void setBook(int slot, Book book) {
+        pages[slot >> PAGE_SHIFT].books.set(slot & (PAGE_SIZE - 1), book);
+    }
+
+    private long word(int slot) {
+        return pages[slot >> PAGE_SHIFT].bits.get((slot & (PAGE_SIZE - 1)) >>> 6);
+    }
+
+    private void setBit(int slot, boolean value) {
+        AtomicLongArray bits = pages[slot >> PAGE_SHIFT].bits;
+        int index = (slot & (PAGE_SIZE - 1)) >>> 6;
+        long mask = 1L << slot;
+        while (true) {
+            long current = bits.get(index);
+            long next = value ? current | mask : current & ~mask;
+            if (current == next) {
+                return;
+            }
+            if (bits.compareAndSet(index, current, next)) {
+                if (value) {
+                    available.increment();
+                } else {
+                    available.decrement();
+                }
+                return;
+            }
+        }
+    }
+
+    private static final class Page {
+        private final AtomicReferenceArray<Book> books = new AtomicReferenceArray<>(PAGE_SIZE);
+        private final AtomicLongArray bits = new AtomicLongArray(PAGE_SIZE / 64);
+    }
+
+    // weakly consistent, walks the bit words and never copies the catalog
+    class SlotIterator implements Iterator<Book> {
+        private final boolean wantAvailable;
+        private int slot;
+        private Book next;
+        private int nextSlot;
+
+        SlotIterator(boolean wantAvailable, int fromSlot) {
+            this.wantAvailable = wantAvailable;
+            this.slot = Math.max(0, fromSlot);
+            advance();
+        }
+
+        // slot of the element next() returns, where a later scan can pick up again
+        int nextSlot() {
+            return nextSlot;
+        }
+
+        private void advance() {
+            next = null;
+            int limit = size;
+            while (slot < limit) {
+                long word = word(slot) >>> (slot & 63);
+                if (!wantAvailable) {
+                    word = ~word;
+                }
+                if (word == 0 || (slot & 63) + Long.numberOfTrailingZeros(word) >= 64) {
+                    slot = (slot | 63) + 1;
+                    continue;
+                }
+                slot += Long.numberOfTrailingZeros(word);
+                if (slot >= limit) {
+                    break;
+                }
+                nextSlot = slot;
+                next = getBook(slot++);
+                if (next != null) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Book next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Book book = next;
+            advance();
+            return book;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package mini_project.library_management_system;
+
+import java.util.Collection;
+
+/**
+ * Where a {@link Library} keeps its books by ISBN: plain {@link Book} objects in a hash
+ * map, or a {@link CompactCatalog} that packs their fields into columns.
+ *
+ * add and remove are called under the library's catalog write lock. Lookups and
+ * iteration run from any thread without a lock.
+ */
+interface BookStorage {
+    Book get(String isbn);
+
+    // false if a book with the same ISBN is already stored
+    boolean add(Book book);
+
+    // only removes this exact instance
+    boolean remove(Book book);
+
+    int size();
+
+    // weakly consistent
+    Iterable<Book> books();
+
+    Collection<String> isbns();
+}
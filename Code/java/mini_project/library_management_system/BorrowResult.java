@@ -0,0 +1,15 @@
+package mini_project.library_management_system;
+
+public enum BorrowResult {
+    SUCCESS,
+    NOT_AVAILABLE,
+    NOT_BORROWED,
+    // reserveBook: the book is out and the user is now queued for it
+    HOLD_PLACED,
+    // reserveBook: the user already has the book or is already queued for it
+    ALREADY_QUEUED;
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
@@ -0,0 +1,284 @@
+package mini_project.library_management_system;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Column of strings packed as UTF-8 into one byte array. Value i starts at
+ * offsets[i] with its byte length as a varint, followed by the bytes.
+ *
+ * Writes come from one thread at a time. Reads need no lock: the arrays are swapped
+ * as a whole through a volatile reference whenever they grow or get compacted, so a
+ * reader always sees one consistent set. A reader racing with {@link #free} or a reuse
+ * of the same index may get a stale value or null, never an exception; callers that
+ * read without a lock re-check that the index still belongs to them.
+ *
+ * Freed and overwritten values leave garbage bytes behind, which are squeezed out
+ * once they outweigh the live ones.
+ */
+class ByteColumn {
+    private static final int MIN_COMPACT_BYTES = 1 << 16;
+
+    private volatile Data data;
+    // first unused byte and the bytes taken by freed values, writer only
+    private int used;
+    private int garbage;
+
+    ByteColumn(int expectedValues, int expectedBytesPerValue) {
+        int values = Math.max(16, expectedValues);
+        this.data = new Data(new byte[values * (1 + Math.max(1, expectedBytesPerValue))], emptyOffsets(values),
+                new long[(values >>> 6) + 1]);
+    }
+
+    /** Stores the value at index i, which must be free, growing the column as needed. */
+    void set(int i, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = varintLength(bytes.length) + bytes.length;
+        Data current = data;
+        if (i >= current.offsets.length || used + length > current.bytes.length) {
+            current = grow(current, i + 1, used + length);
+        }
+        int start = used;
+        int at = writeVarint(current.bytes, start, bytes.length);
+        System.arraycopy(bytes, 0, current.bytes, at, bytes.length);
+        used = start + length;
+        boolean ascii = true;
+        for (byte b : bytes) {
+            if (b < 0) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            current.nonAscii[i >>> 6] &= ~(1L << i);
+        } else {
+            current.nonAscii[i >>> 6] |= 1L << i;
+        }
+        current.offsets[i] = start;
+    }
+
+    void free(int i) {
+        Data current = data;
+        int start = current.offsets[i];
+        if (start < 0) {
+            return;
+        }
+        int length = readVarint(current.bytes, start);
+        garbage += varintLength(length) + length;
+        current.offsets[i] = -1;
+        if (garbage > MIN_COMPACT_BYTES && garbage > used - garbage) {
+            compact(current);
+        }
+    }
+
+    String get(int i) {
+        Data current = data;
+        int start = start(current, i);
+        if (start < 0) {
+            return null;
+        }
+        int length = readVarint(current.bytes, start);
+        int from = start + varintLength(length);
+        if (length < 0 || from + length > current.bytes.length) {
+            return null;
+        }
+        return new String(current.bytes, from, length, StandardCharsets.UTF_8);
+    }
+
+    boolean isAscii(int i) {
+        Data current = data;
+        return i < current.offsets.length && (current.nonAscii[i >>> 6] & (1L << i)) == 0;
+    }
+
+    int hash(int i) {
+        Data current = data;
+        int start = start(current, i);
+        if (start < 0) {
+            return 0;
+        }
+        int length = readVarint(current.bytes, start);
+        int from = start + varintLength(length);
+        return hash(current.bytes, from, Math.min(from + length, current.bytes.length));
+    }
+
+    /** Same as {@link #hash(byte[], int, int)} over the UTF-8 bytes of the value. */
+    static int hash(String value) {
+        int h = 1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                return hash(bytes, 0, bytes.length);
+            }
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // compares against the chars directly when the value is ASCII, so lookups allocate nothing
+    boolean equals(int i, String other) {
+        Data current = data;
+        int start = start(current, i);
+        if (start < 0) {
+            return false;
+        }
+        if ((current.nonAscii[i >>> 6] & (1L << i)) != 0) {
+            return other.equals(get(i));
+        }
+        int length = readVarint(current.bytes, start);
+        int from = start + varintLength(length);
+        if (length != other.length() || from + length > current.bytes.length) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (current.bytes[from + k] != other.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ASCII substring search against the chars of {@code needle}, which the caller has
+     * checked are ASCII. With {@code foldCase} the value is lowercased on the fly and
+     * {@code needle} must already be lowercase.
+     */
+    boolean contains(int i, String needle, boolean foldCase) {
+        Data current = data;
+        int start = start(current, i);
+        if (start < 0) {
+            return false;
+        }
+        int length = readVarint(current.bytes, start);
+        int from = start + varintLength(length);
+        byte[] bytes = current.bytes;
+        if (length < 0 || from + length > bytes.length) {
+            return false;
+        }
+        if (needle.isEmpty()) {
+            return true;
+        }
+        int last = from + length - needle.length();
+        char first = needle.charAt(0);
+        for (int at = from; at <= last; at++) {
+            if (fold(bytes[at], foldCase) != first) {
+                continue;
+            }
+            int k = 1;
+            while (k < needle.length() && fold(bytes[at + k], foldCase) == needle.charAt(k)) {
+                k++;
+            }
+            if (k == needle.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // heap bytes held by this column, used to report the footprint
+    long footprint() {
+        Data current = data;
+        return (long) current.bytes.length + 4L * current.offsets.length + 8L * current.nonAscii.length;
+    }
+
+    private static int start(Data current, int i) {
+        return i >= 0 && i < current.offsets.length ? current.offsets[i] : -1;
+    }
+
+    private Data grow(Data current, int values, int bytes) {
+        int[] offsets = current.offsets;
+        long[] nonAscii = current.nonAscii;
+        if (values > offsets.length) {
+            int capacity = Math.max(values, offsets.length * 2);
+            offsets = Arrays.copyOf(offsets, capacity);
+            Arrays.fill(offsets, current.offsets.length, capacity, -1);
+            nonAscii = Arrays.copyOf(nonAscii, (capacity >>> 6) + 1);
+        }
+        byte[] grown = current.bytes;
+        if (bytes > grown.length) {
+            grown = Arrays.copyOf(grown, Math.max(grown.length * 2, bytes));
+        }
+        Data next = new Data(grown, offsets, nonAscii);
+        data = next;
+        return next;
+    }
+
+    // copies the live values into fresh arrays, readers still holding the old ones are unaffected
+    private void compact(Data current) {
+        int live = used - garbage;
+        byte[] packed = new byte[Math.max(live + (live >>> 1), 64)];
+        int[] offsets = current.offsets.clone();
+        int at = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            int start = offsets[i];
+            if (start < 0) {
+                continue;
+            }
+            int length = readVarint(current.bytes, start);
+            int total = varintLength(length) + length;
+            System.arraycopy(current.bytes, start, packed, at, total);
+            offsets[i] = at;
+            at += total;
+        }
+        used = at;
+        garbage = 0;
+        data = new Data(packed, offsets, current.nonAscii.clone());
+    }
+
+    private static int[] emptyOffsets(int values) {
+        int[] offsets = new int[values];
+        Arrays.fill(offsets, -1);
+        return offsets;
+    }
+
+    private static int varintLength(int value) {
+        return value < 0x80 ? 1 : value < 0x4000 ? 2 : value < 0x20_0000 ? 3 : value < 0x1000_0000 ? 4 : 5;
+    }
+
+    private static int writeVarint(byte[] bytes, int at, int value) {
+        while (value >= 0x80) {
+            bytes[at++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        bytes[at++] = (byte) value;
+        return at;
+    }
+
+    // -1 when a racing reader runs off the end of the array
+    private static int readVarint(byte[] bytes, int at) {
+        int value = 0;
+        for (int shift = 0; shift < 35 && at < bytes.length; shift += 7) {
+            byte b = bytes[at++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    private static int fold(byte b, boolean foldCase) {
+        return foldCase && b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    static int hash(byte[] bytes, int from, int to) {
+        int h = 1;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Data {
+        private final byte[] bytes;
+        private final int[] offsets;
+        // bit i is set when value i has a non-ASCII byte, those values take the slow String path
+        private final long[] nonAscii;
+
+        Data(byte[] bytes, int[] offsets, long[] nonAscii) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.nonAscii = nonAscii;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package mini_project.library_management_system;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk import of a catalog dump in CSV form: {@code title,author,isbn} per line,
+ * an optional header, fields optionally wrapped in double quotes with {@code ""}
+ * as an escaped quote. Quoted fields must not contain line breaks.
+ *
+ * The file is memory-mapped and cut into chunks on line boundaries, the chunks are
+ * parsed in parallel, and the books are added to the library in a single batch.
+ */
+public class CatalogLoader {
+    // keeps every mapping well below the 2GB limit of a MappedByteBuffer
+    private static final long MAX_CHUNK = 256L << 20;
+    private static final long MIN_CHUNK = 1L << 20;
+
+    public static LoadResult load(Library library, Path file) throws IOException {
+        return load(library, file, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static LoadResult load(Library library, Path file, int parallelism) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel, parallelism);
+            int chunks = bounds.length - 1;
+
+            List<List<Book>> parsed = new ArrayList<>(chunks);
+            int[] malformed = new int[chunks];
+            for (int i = 0; i < chunks; i++) {
+                parsed.add(null);
+            }
+            IntStream.range(0, chunks).parallel().forEach(i -> {
+                try {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], bounds[i + 1] - bounds[i]);
+                    Chunk chunk = new Chunk(buffer, i == 0);
+                    parsed.set(i, chunk.parse());
+                    malformed[i] = chunk.malformed;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            List<Book> books = new ArrayList<>();
+            int rejected = 0;
+            for (int i = 0; i < chunks; i++) {
+                books.addAll(parsed.get(i));
+                rejected += malformed[i];
+            }
+            int added = library.addBooks(books);
+            return new LoadResult(books.size() + rejected, added, books.size() - added, rejected, System.nanoTime() - start);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // chunk boundaries, each one just past a '\n' so no line is split between chunks
+    private static long[] split(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long target = Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / Math.max(1, parallelism * 4L)));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = 0;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        while (position + target < size) {
+            long cut = position + target;
+            long found = -1;
+            while (found < 0 && cut < size) {
+                probe.clear();
+                int read = channel.read(probe, cut);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        found = cut + i + 1;
+                        break;
+                    }
+                }
+                cut += read;
+            }
+            if (found < 0 || found >= size) {
+                break;
+            }
+            bounds.add(found);
+            position = found;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static final class Chunk {
+        private final MappedByteBuffer buffer;
+        private final boolean first;
+        private final StringBuilder field;
+        private byte[] scratch;
+        private int malformed;
+
+        Chunk(MappedByteBuffer buffer, boolean first) {
+            this.buffer = buffer;
+            this.first = first;
+            this.field = new StringBuilder();
+            this.scratch = new byte[256];
+        }
+
+        List<Book> parse() {
+            List<Book> books = new ArrayList<>(buffer.limit() / 48 + 1);
+            String[] fields = new String[3];
+            int position = 0;
+            int limit = buffer.limit();
+            boolean header = first;
+            while (position < limit) {
+                int end = position;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int lineEnd = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+                if (lineEnd > position) {
+                    int count = parseLine(position, lineEnd, fields);
+                    if (header && count == 3 && fields[0].equalsIgnoreCase("title")) {
+                        // header row
+                    } else if (count == 3 && !fields[2].isEmpty()) {
+                        books.add(new Book(fields[0], fields[1], fields[2]));
+                    } else {
+                        malformed++;
+                    }
+                }
+                header = false;
+                position = end + 1;
+            }
+            return books;
+        }
+
+        // splits [from, to) into at most three fields, returns how many were found
+        private int parseLine(int from, int to, String[] fields) {
+            int count = 0;
+            int position = from;
+            while (position <= to) {
+                if (count == fields.length) {
+                    return fields.length + 1;
+                }
+                int next;
+                if (position < to && buffer.get(position) == '"') {
+                    field.setLength(0);
+                    int i = position + 1;
+                    int segment = i;
+                    while (true) {
+                        if (i >= to) {
+                            return -1;
+                        }
+                        if (buffer.get(i) == '"') {
+                            appendSegment(segment, i);
+                            if (i + 1 < to && buffer.get(i + 1) == '"') {
+                                field.append('"');
+                                i += 2;
+                                segment = i;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    fields[count++] = field.toString().trim();
+                    next = i + 1;
+                    if (next < to && buffer.get(next) != ',') {
+                        return -1;
+                    }
+                } else {
+                    next = position;
+                    while (next < to && buffer.get(next) != ',') {
+                        next++;
+                    }
+                    fields[count++] = decode(position, next).trim();
+                }
+                position = next + 1;
+            }
+            return count;
+        }
+
+        private void appendSegment(int from, int to) {
+            field.append(decode(from, to));
+        }
+
+        private String decode(int from, int to) {
+            int length = to - from;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(from, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    public static class LoadResult {
+        private final long rows;
+        private final int added;
+        private final int duplicates;
+        private final int malformed;
+        private final long elapsedNanos;
+
+        LoadResult(long rows, int added, int duplicates, int malformed, long elapsedNanos) {
+            this.rows = rows;
+            this.added = added;
+            this.duplicates = duplicates;
+            this.malformed = malformed;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getMalformed() {
+            return malformed;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "LoadResult{" +
+                    "rows=" + rows +
+                    ", added=" + added +
+                    ", duplicates=" + duplicates +
+                    ", malformed=" + malformed +
+                    ", elapsedMs=" + getElapsedMillis() +
+                    ", rowsPerSec=" + String.format("%.0f", getRowsPerSecond()) +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package mini_project.library_management_system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Columnar book storage for very large catalogs, plugged into a {@link Library} with
+ * {@link Library#Library(String, CompactCatalog)}.
+ *
+ * Instead of three Strings per book, titles and ISBNs live in packed UTF-8 columns and
+ * authors are deduplicated into a dictionary, so every record only stores an author
+ * id. A catalogued {@link Book} drops its own strings and becomes a flyweight whose
+ * getters decode its record; removing it from the library hands the strings back.
+ * Availability stays in the library's bit per slot.
+ *
+ * Changes arrive under the library's catalog write lock. Lookups and getters take no
+ * lock: every array a reader touches is published through a volatile reference that is
+ * swapped on growth. Records of removed books go on a free list and are reused by the
+ * next additions; the bytes they leave in the columns are compacted away.
+ */
+public class CompactCatalog implements BookStorage {
+    static final int TITLE = 0;
+    static final int AUTHOR = 1;
+    static final int ISBN = 2;
+
+    // String.toLowerCase() folds ASCII the plain way unless the default locale is e.g. Turkish
+    private static final boolean ASCII_FOLDING = "I".toLowerCase().equals("i");
+
+    private final ByteColumn titles;
+    private final ByteColumn isbns;
+    private final ByteColumn authors;
+    // book and author id per record, swapped as a whole on growth
+    private volatile Records records;
+    // open addressing table of record ids + 1, 0 marks an empty slot; swapped on rehash
+    private volatile int[] isbnTable;
+    private volatile int live;
+    private Library owner;
+
+    // the rest is only touched by the writer
+    private int recordCount;
+    private int isbnEntries;
+    private int[] freeRecords;
+    private int freeCount;
+    private int[] authorTable;
+    private int[] authorRefs;
+    private int[] freeAuthors;
+    private int freeAuthorCount;
+    private int authorCount;
+
+    public CompactCatalog() {
+        this(1024);
+    }
+
+    public CompactCatalog(int expectedBooks) {
+        int capacity = Math.max(16, expectedBooks);
+        this.titles = new ByteColumn(capacity, 24);
+        this.isbns = new ByteColumn(capacity, 13);
+        this.authors = new ByteColumn(capacity / 8, 16);
+        this.records = new Records(capacity);
+        this.isbnTable = new int[tableSize(capacity)];
+        this.freeRecords = new int[16];
+        this.authorTable = new int[tableSize(capacity / 8)];
+        this.authorRefs = new int[Math.max(16, capacity / 8)];
+        this.freeAuthors = new int[16];
+    }
+
+    // a catalog backs one library, whose write lock serializes the changes
+    synchronized CompactCatalog attach(Library library) {
+        if (owner != null) {
+            throw new IllegalStateException("Catalog already backs " + owner.getLibraryName());
+        }
+        owner = library;
+        return this;
+    }
+
+    @Override
+    public Book get(String isbn) {
+        int[] table = isbnTable;
+        int mask = table.length - 1;
+        for (int i = ByteColumn.hash(isbn) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int record = table[i] - 1;
+            AtomicReferenceArray<Book> books = records.books;
+            Book book = record < books.length() ? books.get(record) : null;
+            // a record freed or reused while we compared no longer holds the same book
+            if (book != null && isbns.equals(record, isbn) && books.get(record) == book) {
+                return book;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean add(Book book) {
+        if (book.isPacked()) {
+            throw new IllegalArgumentException("Book " + book.getISBN() + " is already stored in another catalog");
+        }
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        String isbn = book.getISBN();
+        if (get(isbn) != null) {
+            return false;
+        }
+        int record = freeCount > 0 ? freeRecords[--freeCount] : recordCount++;
+        Records current = records;
+        if (record >= current.authorOf.length) {
+            current = grow(current, record + 1);
+        }
+        titles.set(record, title);
+        isbns.set(record, isbn);
+        current.authorOf[record] = internAuthor(author);
+        // the book reads its record from here on, then readers can find it
+        book.pack(this, record);
+        current.books.set(record, book);
+        put(isbnTable, ByteColumn.hash(isbn), record);
+        if (++isbnEntries * 2 > isbnTable.length) {
+            rehashIsbns();
+        }
+        live++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Book book) {
+        int record = book.packedRecord(this);
+        if (record < 0) {
+            return false;
+        }
+        Records current = records;
+        int author = current.authorOf[record];
+        book.unpack(titles.get(record), authors.get(author), isbns.get(record));
+        current.books.set(record, null);
+        titles.free(record);
+        isbns.free(record);
+        releaseAuthor(author);
+        if (freeCount == freeRecords.length) {
+            freeRecords = Arrays.copyOf(freeRecords, freeCount * 2);
+        }
+        freeRecords[freeCount++] = record;
+        live--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return live;
+    }
+
+    // weakly consistent, walks the records in order
+    @Override
+    public Iterable<Book> books() {
+        return () -> new Iterator<Book>() {
+            private final AtomicReferenceArray<Book> books = records.books;
+            private int record = -1;
+            private Book next = advance();
+
+            private Book advance() {
+                while (++record < books.length()) {
+                    Book book = books.get(record);
+                    if (book != null) {
+                        return book;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Book next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Book book = next;
+                next = advance();
+                return book;
+            }
+        };
+    }
+
+    @Override
+    public Collection<String> isbns() {
+        List<String> keys = new ArrayList<>(live);
+        for (Book book : books()) {
+            keys.add(book.getISBN());
+        }
+        return keys;
+    }
+
+    /** Approximate heap bytes held by the columns, record arrays and hash tables. */
+    public long footprint() {
+        Records current = records;
+        return titles.footprint() + isbns.footprint() + authors.footprint()
+                + 4L * (current.books.length() + current.authorOf.length + isbnTable.length)
+                + 4L * (freeRecords.length + authorTable.length + authorRefs.length + freeAuthors.length);
+    }
+
+    // one field of a packed record, null if a concurrent change got in the way
+    String get(int record, int field) {
+        switch (field) {
+            case TITLE:
+                return titles.get(record);
+            case ISBN:
+                return isbns.get(record);
+            default:
+                int[] authorOf = records.authorOf;
+                return record < authorOf.length ? authors.get(authorOf[record]) : null;
+        }
+    }
+
+    /**
+     * The search index's match on a packed book: case-insensitive substring on title and
+     * author, case-sensitive on ISBN. Runs under the catalog read lock, so the record is
+     * stable; ASCII values are matched on the packed bytes without decoding them.
+     */
+    boolean matches(Book book, String query, String lowerQuery) {
+        int record = book.packedRecord(this);
+        int author = records.authorOf[record];
+        return matches(titles, record, lowerQuery, true)
+                || matches(authors, author, lowerQuery, true)
+                || matches(isbns, record, query, false);
+    }
+
+    private static boolean matches(ByteColumn column, int i, String query, boolean foldCase) {
+        if (column.isAscii(i) && isAscii(query) && (!foldCase || ASCII_FOLDING)) {
+            return column.contains(i, query, foldCase);
+        }
+        String value = column.get(i);
+        return foldCase ? value.toLowerCase().contains(query) : value.contains(query);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Records grow(Records current, int capacity) {
+        Records grown = new Records(Math.max(capacity, current.authorOf.length * 2));
+        for (int i = 0; i < current.books.length(); i++) {
+            grown.books.set(i, current.books.get(i));
+        }
+        System.arraycopy(current.authorOf, 0, grown.authorOf, 0, current.authorOf.length);
+        records = grown;
+        return grown;
+    }
+
+    private int internAuthor(String author) {
+        int hash = ByteColumn.hash(author);
+        int mask = authorTable.length - 1;
+        for (int i = hash & mask; authorTable[i] != 0; i = (i + 1) & mask) {
+            int id = authorTable[i] - 1;
+            if (authors.equals(id, author)) {
+                authorRefs[id]++;
+                return id;
+            }
+        }
+        int id = freeAuthorCount > 0 ? freeAuthors[--freeAuthorCount] : authorCount++;
+        if (id == authorRefs.length) {
+            authorRefs = Arrays.copyOf(authorRefs, id * 2);
+        }
+        authors.set(id, author);
+        authorRefs[id] = 1;
+        put(authorTable, hash, id);
+        if ((authorCount - freeAuthorCount) * 2 > authorTable.length) {
+            rebuildAuthorTable(authorCount - freeAuthorCount);
+        }
+        return id;
+    }
+
+    // an author no book refers to any more leaves the dictionary
+    private void releaseAuthor(int id) {
+        if (--authorRefs[id] > 0) {
+            return;
+        }
+        int mask = authorTable.length - 1;
+        int i = authors.hash(id) & mask;
+        while (authorTable[i] != id + 1) {
+            i = (i + 1) & mask;
+        }
+        // backward shift deletion keeps every probe chain unbroken without tombstones
+        for (int next = (i + 1) & mask; authorTable[next] != 0; next = (next + 1) & mask) {
+            int home = authors.hash(authorTable[next] - 1) & mask;
+            if (((next - home) & mask) >= ((next - i) & mask)) {
+                authorTable[i] = authorTable[next];
+                i = next;
+            }
+        }
+        authorTable[i] = 0;
+        authors.free(id);
+        if (freeAuthorCount == freeAuthors.length) {
+            freeAuthors = Arrays.copyOf(freeAuthors, freeAuthorCount * 2);
+        }
+        freeAuthors[freeAuthorCount++] = id;
+    }
+
+    private void rebuildAuthorTable(int entries) {
+        authorTable = new int[tableSize(entries)];
+        for (int id = 0; id < authorCount; id++) {
+            if (authorRefs[id] > 0) {
+                put(authorTable, authors.hash(id), id);
+            }
+        }
+    }
+
+    private static void put(int[] table, int hash, int id) {
+        int mask = table.length - 1;
+        int i = hash & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = id + 1;
+    }
+
+    // entries of freed records stay behind until here, readers skip them by comparing the ISBN
+    private void rehashIsbns() {
+        int[] table = new int[tableSize(live * 2)];
+        AtomicReferenceArray<Book> books = records.books;
+        int entries = 0;
+        for (int record = 0; record < recordCount; record++) {
+            if (books.get(record) != null) {
+                put(table, isbns.hash(record), record);
+                entries++;
+            }
+        }
+        isbnEntries = entries;
+        isbnTable = table;
+    }
+
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(16, entries) * 2 - 1) << 1;
+    }
+
+    private static final class Records {
+        private final AtomicReferenceArray<Book> books;
+        private final int[] authorOf;
+
+        Records(int capacity) {
+            this.books = new AtomicReferenceArray<>(capacity);
+            this.authorOf = new int[capacity];
+        }
+    }
+}
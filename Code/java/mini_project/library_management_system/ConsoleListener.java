@@ -0,0 +1,24 @@
+package mini_project.library_management_system;
+
+import java.io.PrintStream;
+
+/**
+ * Prints library messages to a stream. Every {@link Library} starts with
+ * {@link #STANDARD_OUT} registered, which keeps the old interactive output; remove it
+ * to run the library silently, or add one over another stream to redirect it.
+ */
+public class ConsoleListener implements LibraryListener {
+    public static final ConsoleListener STANDARD_OUT = new ConsoleListener(null);
+
+    // null means whatever System.out is at the time of the call
+    private final PrintStream out;
+
+    public ConsoleListener(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void message(String text) {
+        (out != null ? out : System.out).println(text);
+    }
+}
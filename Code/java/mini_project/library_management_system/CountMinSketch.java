@@ -0,0 +1,73 @@
+package mini_project.library_management_system;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch over string keys: {@code DEPTH} rows of counters, each key bumps one
+ * counter per row and its estimate is the smallest of them. Estimates never undercount;
+ * they overcount by at most about 2/width of the total with high probability.
+ *
+ * Updates are lock-free atomic increments, so any number of threads can add at once.
+ * The memory is fixed by the width, no matter how many distinct keys are seen.
+ */
+class CountMinSketch {
+    private static final int DEPTH = 4;
+
+    private final AtomicLongArray counters;
+    private final int widthBits;
+
+    CountMinSketch(int width) {
+        this.widthBits = 32 - Integer.numberOfLeadingZeros(Math.max(16, width) - 1);
+        this.counters = new AtomicLongArray(DEPTH << widthBits);
+    }
+
+    int width() {
+        return 1 << widthBits;
+    }
+
+    // adds one occurrence and returns the key's estimate including it
+    long add(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    long estimate(String key) {
+        long hash = hash(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Divides every counter by 2^shift. Concurrent adds are not lost, each counter is
+     * shifted with its own CAS, but one that lands mid-way is only decayed in some rows.
+     */
+    void decay(int shift) {
+        for (int i = 0; i < counters.length(); i++) {
+            long current;
+            do {
+                current = counters.get(i);
+            } while (current != 0 && !counters.compareAndSet(i, current, current >>> shift));
+        }
+    }
+
+    // row r uses h1 + r * h2 (double hashing), both halves taken from one 64 bit mix
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return (row << widthBits) | ((h1 + row * h2) >>> (32 - widthBits));
+    }
+
+    private static long hash(String key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 32);
+    }
+}
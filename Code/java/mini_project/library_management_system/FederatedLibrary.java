@@ -0,0 +1,254 @@
+package mini_project.library_management_system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * One logical library spread over several {@link Library} shards. Books are placed
+ * by a hash of their ISBN, so a lookup, borrow or return touches exactly one shard.
+ * Searches and listings run on every shard at once in a {@link ForkJoinPool} and the
+ * results are concatenated shard by shard.
+ *
+ * Users are registered with every shard, because any of them may lend the user a
+ * book or queue them for one. The first shard announces the user to the listeners,
+ * the others take a silent replica. Adding and removing one id is serialized on a
+ * lock striped by id, so a concurrent add and remove cannot leave the shards
+ * disagreeing about the user. Each shard is a full {@link Library} with its own locks,
+ * index and cache, so work on different shards never contends.
+ */
+public class FederatedLibrary {
+    private static final int USER_LOCKS = 64;
+
+    private final String name;
+    private final Library[] shards;
+    private final ForkJoinPool pool;
+    // one user id always maps to the same lock, so its replication across the shards runs alone
+    private final Object[] userLocks;
+
+    public FederatedLibrary(String name, int shardCount) {
+        this(name, shardCount, ForkJoinPool.commonPool());
+    }
+
+    public FederatedLibrary(String name, int shardCount, ForkJoinPool pool) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be positive");
+        }
+        this.name = name;
+        this.shards = new Library[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Library(name + "-" + i);
+        }
+        this.pool = pool;
+        this.userLocks = new Object[USER_LOCKS];
+        for (int i = 0; i < USER_LOCKS; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    public String getLibraryName() {
+        return name;
+    }
+
+    public List<Library> getShards() {
+        return List.of(shards);
+    }
+
+    /** The shard that holds, or would hold, the book with this ISBN. */
+    public Library shardOf(String isbn) {
+        return shards[shardIndex(isbn)];
+    }
+
+    private int shardIndex(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (int) (((h ^ (h >>> 16)) & 0xFFFFFFFFL) % shards.length);
+    }
+
+    public void addBook(Book book) {
+        shardOf(book.getISBN()).addBook(book);
+    }
+
+    /** Splits the batch by shard and loads every shard in parallel, returns how many were new. */
+    public int addBooks(Collection<Book> batch) {
+        List<List<Book>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>(batch.size() / shards.length + 1));
+        }
+        for (Book book : batch) {
+            parts.get(shardIndex(book.getISBN())).add(book);
+        }
+        int added = 0;
+        for (int count : scatter(i -> shards[i].addBooks(parts.get(i)))) {
+            added += count;
+        }
+        return added;
+    }
+
+    public void removeBook(Book book) {
+        shardOf(book.getISBN()).removeBook(book);
+    }
+
+    public void addUser(User user) {
+        synchronized (userLock(user.getId())) {
+            // the first shard decides whether the id is taken and tells the listeners, once
+            if (!shards[0].insertUser(user)) {
+                shards[0].message("A user with Id " + user.getId() + " already exists.");
+                return;
+            }
+            for (int i = 1; i < shards.length; i++) {
+                shards[i].insertUser(user, false);
+            }
+        }
+        shards[0].message("Added user: " + user.getName());
+    }
+
+    public void removeUser(User user) {
+        synchronized (userLock(user.getId())) {
+            if (!shards[0].deleteUser(user)) {
+                shards[0].message("User not found: " + user.getName());
+                return;
+            }
+            for (int i = 1; i < shards.length; i++) {
+                shards[i].deleteUser(user, false);
+            }
+        }
+        shards[0].message("Removed user: " + user.getName());
+    }
+
+    private Object userLock(String id) {
+        int h = id.hashCode() * 0x9E3779B9;
+        return userLocks[(h ^ (h >>> 16)) & (USER_LOCKS - 1)];
+    }
+
+    public Book findBook(String isbn) {
+        return shardOf(isbn).findBook(isbn);
+    }
+
+    // users live on every shard, the id picks one so lookups spread out
+    public User findUser(String id) {
+        return shardOf(id).findUser(id);
+    }
+
+    public BorrowResult borrowBook(User user, Book book) {
+        return shardOf(book.getISBN()).borrowBook(user, book);
+    }
+
+    public BorrowResult returnBook(User user, Book book) {
+        return shardOf(book.getISBN()).returnBook(user, book);
+    }
+
+    public BorrowResult reserveBook(User user, Book book) {
+        return shardOf(book.getISBN()).reserveBook(user, book);
+    }
+
+    public boolean cancelHold(User user, Book book) {
+        return shardOf(book.getISBN()).cancelHold(user, book);
+    }
+
+    /** All matches from every shard, each shard's matches in its catalog order. */
+    public List<Book> searchBooks(String query) {
+        return concat(scatter(i -> shards[i].searchBooks(query)));
+    }
+
+    /**
+     * The first {@code limit} of {@link #searchBooks(String)}'s matches, the same ones on
+     * every call. Shards search lazily and each stops reading its index after
+     * {@code limit} matches.
+     */
+    public List<Book> searchBooks(String query, int limit) {
+        return gather(limit, shard -> shard.streamSearch(query).iterator());
+    }
+
+    public List<Book> getAvaliableBooks() {
+        return concat(scatter(i -> shards[i].getAvaliableBooks()));
+    }
+
+    /** The first {@code limit} available books in shard order, with the same early stop as {@link #searchBooks(String, int)}. */
+    public List<Book> getAvaliableBooks(int limit) {
+        return gather(limit, shard -> shard.availableBooks().iterator());
+    }
+
+    public List<Book> getBorrowBooks() {
+        return concat(scatter(i -> shards[i].getBorrowBooks()));
+    }
+
+    public int countAvailable() {
+        int count = 0;
+        for (Library shard : shards) {
+            count += shard.countAvailable();
+        }
+        return count;
+    }
+
+    public int countBorrowed() {
+        int count = 0;
+        for (Library shard : shards) {
+            count += shard.countBorrowed();
+        }
+        return count;
+    }
+
+    public void addListener(LibraryListener listener) {
+        for (Library shard : shards) {
+            shard.addListener(listener);
+        }
+    }
+
+    public void removeListener(LibraryListener listener) {
+        for (Library shard : shards) {
+            shard.removeListener(listener);
+        }
+    }
+
+    // runs the call on every shard in the pool, results in shard order
+    private <T> List<T> scatter(IntFunction<T> call) {
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            tasks.add(pool.submit(() -> call.apply(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        for (ForkJoinTask<T> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    private List<Book> gather(int limit, Function<Library, Iterator<Book>> source) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        List<Book> merged = concat(scatter(i -> {
+            List<Book> found = new ArrayList<>();
+            Iterator<Book> books = source.apply(shards[i]);
+            while (found.size() < limit && books.hasNext()) {
+                found.add(books.next());
+            }
+            return found;
+        }));
+        // cut in shard order, not by which shard was fastest, so the answer does not change between calls
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    private static List<Book> concat(List<List<Book>> parts) {
+        int size = 0;
+        for (List<Book> part : parts) {
+            size += part.size();
+        }
+        List<Book> result = new ArrayList<>(size);
+        for (List<Book> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "FederatedLibrary{name=" + name + ", shards=" + shards.length + "}";
+    }
+}
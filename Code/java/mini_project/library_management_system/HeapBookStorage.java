@@ -0,0 +1,40 @@
+package mini_project.library_management_system;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// the default storage, books keep their own fields
+class HeapBookStorage implements BookStorage {
+    private final Map<String, Book> booksByIsbn = new ConcurrentHashMap<>();
+
+    @Override
+    public Book get(String isbn) {
+        return booksByIsbn.get(isbn);
+    }
+
+    @Override
+    public boolean add(Book book) {
+        return booksByIsbn.putIfAbsent(book.getISBN(), book) == null;
+    }
+
+    @Override
+    public boolean remove(Book book) {
+        return booksByIsbn.remove(book.getISBN(), book);
+    }
+
+    @Override
+    public int size() {
+        return booksByIsbn.size();
+    }
+
+    @Override
+    public Iterable<Book> books() {
+        return booksByIsbn.values();
+    }
+
+    @Override
+    public Collection<String> isbns() {
+        return booksByIsbn.keySet();
+    }
+}
@@ -0,0 +1,218 @@
+package mini_project.library_management_system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Predicate;
+
+/**
+ * FIFO hold queues, one per book, with no lock anywhere: each queue is a
+ * {@link ConcurrentLinkedQueue} of holds plus a map from user to their live hold that
+ * rejects duplicates. Cancelling only flips the hold's state, the dead entry is skipped
+ * when it reaches the head, so cancel is O(1) too. Handing out and cancelling race on
+ * one CAS per hold, so a hold is either fulfilled or cancelled, never both.
+ *
+ * Each queue counts its live holds. The one that takes the count to zero retires the
+ * queue with a CAS to -1 and removes it from the map; a hold placed on a retired queue
+ * goes to a fresh one instead, so books nobody waits for leave no entry behind.
+ *
+ * Serving a book's queue ({@link #next}, {@link #serve}) is left to the caller to
+ * serialize per book; Library does it under the book's monitor.
+ */
+class HoldQueues {
+    private final Map<Book, Queue> queues;
+
+    HoldQueues() {
+        this.queues = new ConcurrentHashMap<>();
+    }
+
+    /** Queues the user for the book, false if they are already queued for it. */
+    boolean place(User user, Book book) {
+        while (true) {
+            Queue queue = queues.computeIfAbsent(book, key -> new Queue());
+            if (!queue.enter()) {
+                // retired after its last hold ended, help take it out of the map and start a fresh one
+                queues.remove(book, queue);
+                continue;
+            }
+            Hold hold = new Hold(user);
+            if (queue.byUser.putIfAbsent(user, hold) != null) {
+                leave(book, queue);
+                return false;
+            }
+            queue.order.offer(hold);
+            return true;
+        }
+    }
+
+    boolean cancel(User user, Book book) {
+        Queue queue = queues.get(book);
+        if (queue == null) {
+            return false;
+        }
+        Hold hold = queue.byUser.get(user);
+        if (hold == null || !hold.cancel()) {
+            return false;
+        }
+        queue.byUser.remove(user, hold);
+        leave(book, queue);
+        return true;
+    }
+
+    /**
+     * Takes the first live hold on the book and returns its user, or null when nobody
+     * is waiting. Holds of users that fail {@code eligible} are used up and skipped.
+     * For a hand-off that cannot fail; a borrow that can goes through {@link #serve}.
+     */
+    User next(Book book, Predicate<User> eligible) {
+        Queue queue = queues.get(book);
+        if (queue == null) {
+            return null;
+        }
+        Hold hold = claimHead(book, queue, eligible);
+        if (hold == null) {
+            return null;
+        }
+        complete(book, queue, hold);
+        return hold.user;
+    }
+
+    /**
+     * Offers the book to the first live hold through {@code borrow}. The hold is used up
+     * only when the borrow succeeds; otherwise it goes back to the head of the line.
+     *
+     * @return whether a holder got the book
+     */
+    boolean serve(Book book, Predicate<User> eligible, Predicate<User> borrow) {
+        Queue queue = queues.get(book);
+        if (queue == null) {
+            return false;
+        }
+        Hold hold = claimHead(book, queue, eligible);
+        if (hold == null) {
+            return false;
+        }
+        if (!borrow.test(hold.user)) {
+            hold.release();
+            return false;
+        }
+        complete(book, queue, hold);
+        return true;
+    }
+
+    // claims the first live hold of an eligible user, still at the head; dead and ineligible ones are dropped on the way
+    private Hold claimHead(Book book, Queue queue, Predicate<User> eligible) {
+        Hold hold;
+        while ((hold = queue.order.peek()) != null) {
+            if (!hold.claim()) {
+                // cancelled meanwhile, its count was already given back
+                queue.order.poll();
+                continue;
+            }
+            if (eligible.test(hold.user)) {
+                return hold;
+            }
+            complete(book, queue, hold);
+        }
+        return null;
+    }
+
+    private void complete(Book book, Queue queue, Hold hold) {
+        hold.state = Hold.DONE;
+        queue.order.poll();
+        queue.byUser.remove(hold.user, hold);
+        leave(book, queue);
+    }
+
+    private void leave(Book book, Queue queue) {
+        if (queue.exit()) {
+            queues.remove(book, queue);
+        }
+    }
+
+    boolean isQueued(User user, Book book) {
+        Queue queue = queues.get(book);
+        return queue != null && queue.byUser.containsKey(user);
+    }
+
+    /** Users waiting for the book, first in line first. */
+    List<User> holders(Book book) {
+        List<User> holders = new ArrayList<>();
+        Queue queue = queues.get(book);
+        if (queue != null) {
+            for (Hold hold : queue.order) {
+                if (hold.state != Hold.DONE) {
+                    holders.add(hold.user);
+                }
+            }
+        }
+        return holders;
+    }
+
+    Set<Book> books() {
+        return queues.keySet();
+    }
+
+    void drop(Book book) {
+        queues.remove(book);
+    }
+
+    private static final class Queue {
+        private static final AtomicIntegerFieldUpdater<Queue> LIVE =
+                AtomicIntegerFieldUpdater.newUpdater(Queue.class, "live");
+
+        private final ConcurrentLinkedQueue<Hold> order = new ConcurrentLinkedQueue<>();
+        private final Map<User, Hold> byUser = new ConcurrentHashMap<>();
+        // holds placed and not yet ended, -1 once retired
+        private volatile int live;
+
+        boolean enter() {
+            int current;
+            do {
+                current = live;
+                if (current < 0) {
+                    return false;
+                }
+            } while (!LIVE.compareAndSet(this, current, current + 1));
+            return true;
+        }
+
+        // true for the caller that retires the queue
+        boolean exit() {
+            return LIVE.decrementAndGet(this) == 0 && LIVE.compareAndSet(this, 0, -1);
+        }
+    }
+
+    private static final class Hold {
+        private static final int LIVE = 0;
+        private static final int CLAIMED = 1;
+        private static final int DONE = 2;
+        private static final AtomicIntegerFieldUpdater<Hold> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Hold.class, "state");
+
+        private final User user;
+        private volatile int state;
+
+        Hold(User user) {
+            this.user = user;
+        }
+
+        // only a live hold can be cancelled; one being served belongs to the server
+        boolean cancel() {
+            return STATE.compareAndSet(this, LIVE, DONE);
+        }
+
+        boolean claim() {
+            return STATE.compareAndSet(this, LIVE, CLAIMED);
+        }
+
+        // the borrow failed, the hold is live again and still first in line
+        void release() {
+            state = LIVE;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package mini_project.library_management_system;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Blocked Bloom filter over string keys, used to answer "definitely not here" before
+ * touching the primary key maps. All bits of a key sit in one 64 bit word, so a
+ * lookup costs one memory access and no allocation; with 16 bits per key about 1%
+ * of absent keys get through.
+ *
+ * Lookups are lock-free. Adding, counting removals and deciding when to rebuild are
+ * left to the caller, which serializes them under the catalog write lock. Removed
+ * keys keep their bits; once they or the additions outgrow the sizing the caller
+ * swaps in a fresh filter built with {@link #of(Collection)}.
+ */
+class KeyFilter {
+    private static final int BITS_PER_KEY = 16;
+    private static final int BITS_PER_WORD = 64;
+    private static final int HASHES = 6;
+
+    private final AtomicLongArray words;
+    private final int wordBits;
+    private final int capacity;
+    private int added;
+    private int removed;
+
+    KeyFilter(int capacity) {
+        this.capacity = Math.max(1024, capacity);
+        long bits = (long) this.capacity * BITS_PER_KEY;
+        this.wordBits = 64 - Long.numberOfLeadingZeros(Math.max(1, bits / BITS_PER_WORD) - 1);
+        this.words = new AtomicLongArray(1 << wordBits);
+    }
+
+    /** A filter over the given keys with room for as many again. */
+    static KeyFilter of(Collection<String> keys) {
+        KeyFilter filter = new KeyFilter(keys.size() * 2);
+        for (String key : keys) {
+            filter.add(key);
+        }
+        return filter;
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        long mask = mask(hash);
+        return (words.get(word(hash)) & mask) == mask;
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        int word = word(hash);
+        long mask = mask(hash);
+        long current;
+        do {
+            current = words.get(word);
+        } while ((current & mask) != mask && !words.compareAndSet(word, current, current | mask));
+        added++;
+    }
+
+    void removed() {
+        removed++;
+    }
+
+    // past its sizing, or mostly bits of keys that are gone: time to rebuild from the live keys
+    boolean isStale() {
+        return added > capacity || (removed > capacity / 4 && removed > added - removed);
+    }
+
+    private int word(long hash) {
+        return (int) (hash >>> (64 - wordBits));
+    }
+
+    // six bit positions out of the low 36 bits, duplicates just set fewer bits
+    private static long mask(long hash) {
+        long mask = 0;
+        for (int i = 0; i < HASHES; i++) {
+            mask |= 1L << (hash >>> (6 * i));
+        }
+        return mask;
+    }
+
+    private static long hash(String key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29);
+    }
+}
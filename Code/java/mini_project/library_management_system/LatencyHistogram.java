@@ -0,0 +1,146 @@
+package mini_project.library_management_system;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram in nanoseconds with HDR-style log-linear buckets: every power of two
+ * is split into 32 linear sub-buckets, so any recorded value is reported within about 3%
+ * up to 2^40 ns (18 minutes); larger values land in the last bucket.
+ *
+ * Recording allocates nothing and costs a single atomic increment: counts are kept in
+ * stripes picked by thread id, so threads on different stripes never touch the same
+ * cache line, and a snapshot merges the stripes. Mean and max are derived from the
+ * buckets, so they carry the same 3% resolution as the percentiles.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+    // keeps neighbouring stripes of the flat array on different cache lines
+    private static final int STRIPE_PAD = 16;
+
+    private final int stripeMask;
+    private final int stripeLength;
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.stripeLength = BUCKETS + STRIPE_PAD;
+        this.counts = new AtomicLongArray(stripes * stripeLength);
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        counts.incrementAndGet(stripe * stripeLength + index(value));
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    // largest value that falls into the bucket, what percentiles report
+    static long highestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = index - ((long) shift << SUB_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+
+    static long lowestEquivalent(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        return (index - ((long) shift << SUB_BITS)) << shift;
+    }
+
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            int base = stripe * stripeLength;
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += counts.get(base + i);
+            }
+        }
+        return new Snapshot(merged);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /** Merged counts at one point in time; recording may continue meanwhile. */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final double sum;
+        private final long max;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            double weighted = 0;
+            int highest = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    total += counts[i];
+                    // midpoint of the bucket
+                    weighted += counts[i] * ((lowestEquivalent(i) + highestEquivalent(i)) / 2.0);
+                    highest = i;
+                }
+            }
+            this.count = total;
+            this.sum = weighted;
+            this.max = total == 0 ? 0 : highestEquivalent(highest);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        public long getMaxNanos() {
+            return max;
+        }
+
+        /** The value at or below which {@code percentile} percent of the recordings fall. */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestEquivalent(i);
+                }
+            }
+            return max;
+        }
+
+        /** Adds another snapshot's counts, e.g. the same operation on another library. */
+        public Snapshot merge(Snapshot other) {
+            long[] merged = counts.clone();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += other.counts[i];
+            }
+            return new Snapshot(merged);
+        }
+    }
+}
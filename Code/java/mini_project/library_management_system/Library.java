@@ -2,17 +2,109 @@ package mini_project.library_management_system;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Safe to share between threads. Lookups, availability counts and borrow/return
+ * take no lock; only changes to the catalog (add/remove book or user) and searches
+ * over it go through the catalog read/write lock.
+ */
 public class Library {
     private String name;
-    private List<User> users;
-    private List<Book> books;
+    // dense book slots with an availability bit each
+    private BookSlots books;
+
+    // primary key indexes, books either as plain objects or packed into a CompactCatalog
+    private BookStorage storage;
+    private Map<String, User> usersById;
+    // answer most lookups of unknown keys without touching the maps, swapped for a rebuilt one under the write lock
+    private volatile KeyFilter bookFilter;
+    private volatile KeyFilter userFilter;
+    private SearchIndex searchIndex;
+    // words of titles and authors for autocomplete and fuzzy search
+    private TermTrie terms;
+    private ReadWriteLock catalogLock;
+    private List<LibraryListener> listeners;
+    private LoanLedger loans;
+    private HoldQueues holds;
+    // null unless enableMetrics() was called, so disabled metrics cost one volatile read per operation
+    private volatile LibraryMetrics metrics;
+    private QueryCache<List<Book>> searchCache;
+    // bumped under the write lock by every change to the catalog, cached results from older versions are stale
+    private long catalogVersion;
+    // decayed borrow counts by ISBN and search counts by normalized query
+    private PopularityTracker borrowPopularity;
+    private PopularityTracker searchPopularity;
+
+    // how many matches a lazy search stream fetches per trip through the index
+    private static final int STREAM_BATCH = 256;
+    private static final long DEFAULT_LOAN_PERIOD = TimeUnit.DAYS.toMillis(14);
+    private static final long LOAN_TICK = TimeUnit.SECONDS.toMillis(1);
+    private static final int SEARCH_CACHE_SIZE = 1024;
+    private static final int SEARCH_CACHE_MAX_RESULTS = 10_000;
+    private static final int POPULARITY_CAPACITY = 1024;
+    private static final int POPULARITY_SKETCH_WIDTH = 8192;
+    private static final long POPULARITY_HALF_LIFE = TimeUnit.DAYS.toMillis(7);
 
     public Library(String name) {
+        this(name, System::currentTimeMillis, DEFAULT_LOAN_PERIOD);
+    }
+
+    /** A library whose books keep their fields in {@code catalog}, see {@link CompactCatalog}. */
+    public Library(String name, CompactCatalog catalog) {
+        this(name, System::currentTimeMillis, DEFAULT_LOAN_PERIOD, catalog);
+    }
+
+    public Library(String name, LongSupplier clock, long loanPeriodMillis) {
+        this(name, clock, loanPeriodMillis, null);
+    }
+
+    /**
+     * @param clock            wall clock in milliseconds used for due dates
+     * @param loanPeriodMillis how long a loan runs before it is overdue
+     * @param catalog          packed storage for the book fields, null to leave them on the books
+     */
+    public Library(String name, LongSupplier clock, long loanPeriodMillis, CompactCatalog catalog) {
         this.name = name;
-        this.users = new ArrayList<>();
-        this.books = new ArrayList<>();
+        this.books = new BookSlots();
+        this.storage = catalog != null ? catalog.attach(this) : new HeapBookStorage();
+        this.usersById = new ConcurrentHashMap<>();
+        this.bookFilter = new KeyFilter(0);
+        this.userFilter = new KeyFilter(0);
+        this.searchIndex = new SearchIndex(catalog);
+        this.terms = new TermTrie();
+        this.catalogLock = new ReentrantReadWriteLock();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.listeners.add(ConsoleListener.STANDARD_OUT);
+        this.holds = new HoldQueues();
+        this.searchCache = new QueryCache<>(SEARCH_CACHE_SIZE, SEARCH_CACHE_MAX_RESULTS);
+        this.borrowPopularity = new PopularityTracker(POPULARITY_CAPACITY, POPULARITY_SKETCH_WIDTH, POPULARITY_HALF_LIFE, clock);
+        this.searchPopularity = new PopularityTracker(POPULARITY_CAPACITY, POPULARITY_SKETCH_WIDTH, POPULARITY_HALF_LIFE, clock);
+        this.loans = new LoanLedger(clock, loanPeriodMillis, LOAN_TICK, loan -> {
+            for (LibraryListener listener : listeners) {
+                listener.loanOverdue(loan);
+            }
+        });
     }
 
     public String getLibraryName() {
@@ -20,36 +112,719 @@ public class Library {
     }
 
     public void addBook(Book book) {
-        books.add(book);
-        System.out.println("Added book: " + book.getTitle());
+        if (insertBook(book)) {
+            message("Added book: " + book.getTitle());
+        } else {
+            message("A book with ISBN " + book.getISBN() + " already exists.");
+        }
     }
 
     public void removeBook(Book book) {
-        if (books.remove(book)) {
-            System.out.println("Removed book: " + book.getTitle());
+        if (deleteBook(book)) {
+            message("Removed book: " + book.getTitle());
         } else {
-            System.out.println("Book not found: " + book.getTitle());
+            message("Book not found: " + book.getTitle());
         }
     }
 
     public void addUser(User user) {
-        users.add(user);
-        System.out.println("Added user: " + user.getName());
+        if (insertUser(user)) {
+            message("Added user: " + user.getName());
+        } else {
+            message("A user with Id " + user.getId() + " already exists.");
+        }
     }
 
     public void removeUser(User user) {
-        if (users.remove(user)) {
-            System.out.println("Removed user: " + user.getName());
+        if (deleteUser(user)) {
+            message("Removed user: " + user.getName());
         } else {
-            System.out.println("User not found: " + user.getName());
+            message("User not found: " + user.getName());
+        }
+    }
+
+    // silent versions of the mutations above, listeners are told inside the lock so they see changes in order
+    boolean insertBook(Book book) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            catalogLock.writeLock().lock();
+            try {
+                if (storage.get(book.getISBN()) != null) {
+                    return false;
+                }
+                // the filter learns the key first, so a reader never finds a book the filter denies
+                bookFilter.add(book.getISBN());
+                storage.add(book);
+                if (bookFilter.isStale()) {
+                    bookFilter = KeyFilter.of(storage.isbns());
+                }
+                book.setLibrary(this);
+                books.add(book);
+                searchIndex.add(book);
+                indexTerms(book, true);
+                catalogVersion++;
+                for (LibraryListener listener : listeners) {
+                    listener.bookAdded(book);
+                }
+                return true;
+            } finally {
+                catalogLock.writeLock().unlock();
+                settle();
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.ADD_BOOK, startNanos);
+            }
+        }
+    }
+
+    /**
+     * Adds many books under a single acquisition of the catalog lock and without
+     * printing anything. Books whose ISBN is already catalogued are skipped.
+     *
+     * @return the number of books actually added
+     */
+    public int addBooks(Collection<Book> batch) {
+        catalogLock.writeLock().lock();
+        try {
+            List<Book> added = new ArrayList<>(batch.size());
+            for (Book book : batch) {
+                if (storage.get(book.getISBN()) != null) {
+                    continue;
+                }
+                bookFilter.add(book.getISBN());
+                storage.add(book);
+                book.setLibrary(this);
+                books.add(book);
+                indexTerms(book, true);
+                added.add(book);
+            }
+            searchIndex.addAll(added);
+            if (bookFilter.isStale()) {
+                bookFilter = KeyFilter.of(storage.isbns());
+            }
+            if (!added.isEmpty()) {
+                catalogVersion++;
+            }
+            for (Book book : added) {
+                for (LibraryListener listener : listeners) {
+                    listener.bookAdded(book);
+                }
+            }
+            return added.size();
+        } finally {
+            catalogLock.writeLock().unlock();
+            settle();
+        }
+    }
+
+    boolean deleteBook(Book book) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            catalogLock.writeLock().lock();
+            try {
+                // only remove the exact instance that is indexed under this ISBN
+                if (!storage.remove(book)) {
+                    return false;
+                }
+                bookFilter.removed();
+                if (bookFilter.isStale()) {
+                    bookFilter = KeyFilter.of(storage.isbns());
+                }
+                books.remove(book);
+                searchIndex.remove(book);
+                indexTerms(book, false);
+                holds.drop(book);
+                // a deleted book is no longer on loan from this library and never falls overdue
+                synchronized (book) {
+                    loans.close(book);
+                }
+                catalogVersion++;
+                book.setLibrary(null);
+                for (LibraryListener listener : listeners) {
+                    listener.bookRemoved(book);
+                }
+                return true;
+            } finally {
+                catalogLock.writeLock().unlock();
+                settle();
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.REMOVE_BOOK, startNanos);
+            }
         }
     }
 
+    boolean insertUser(User user) {
+        return insertUser(user, true);
+    }
+
+    // without notify the user is only a replica, e.g. on the other shards of a FederatedLibrary
+    boolean insertUser(User user, boolean notify) {
+        catalogLock.writeLock().lock();
+        try {
+            if (usersById.containsKey(user.getId())) {
+                return false;
+            }
+            userFilter.add(user.getId());
+            usersById.put(user.getId(), user);
+            if (userFilter.isStale()) {
+                userFilter = KeyFilter.of(usersById.keySet());
+            }
+            if (notify) {
+                for (LibraryListener listener : listeners) {
+                    listener.userAdded(user);
+                }
+            }
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            settle();
+        }
+    }
+
+    boolean deleteUser(User user) {
+        return deleteUser(user, true);
+    }
+
+    boolean deleteUser(User user, boolean notify) {
+        catalogLock.writeLock().lock();
+        try {
+            if (!usersById.remove(user.getId(), user)) {
+                return false;
+            }
+            userFilter.removed();
+            if (userFilter.isStale()) {
+                userFilter = KeyFilter.of(usersById.keySet());
+            }
+            if (notify) {
+                for (LibraryListener listener : listeners) {
+                    listener.userRemoved(user);
+                }
+            }
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            settle();
+        }
+    }
+
+    // caller holds the write lock; a word counts once per book even if title and author share it
+    private void indexTerms(Book book, boolean add) {
+        for (String term : bookTerms(book)) {
+            if (add) {
+                terms.add(term, book);
+            } else {
+                terms.remove(term, book);
+            }
+        }
+    }
+
+    private static Set<String> bookTerms(Book book) {
+        Set<String> words = new HashSet<>(TermTrie.terms(book.getTitle()));
+        words.addAll(TermTrie.terms(book.getAuthor()));
+        return words;
+    }
+
+    // called by Book whenever borrow() or returnBook() changes its availability
+    void availabilityChanged(Book book) {
+        books.sync(book);
+    }
+
+    /**
+     * Results are cached per query and reused until the catalog changes; every call
+     * still gets its own list.
+     */
     public List<Book> searchBooks(String query) {
-        return books.stream().filter(
-            book -> book.getTitle().toLowerCase().contains(query.toLowerCase()) || 
-                    book.getAuthor().toLowerCase().contains(query.toLowerCase()) ||
-                    book.getISBN().contains(query)).collect(Collectors.toList());
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            searchPopularity.record(normalizeQuery(query));
+            catalogLock.readLock().lock();
+            try {
+                // the version cannot move while the read lock is held, so a cached result is never older than it claims
+                return new ArrayList<>(searchCache.get(query, catalogVersion, searchIndex::search));
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.SEARCH, startNanos);
+            }
+        }
+    }
+
+    /**
+     * Up to {@code k} completions of the last word of {@code prefix} from the words in
+     * titles and authors, most common first. Earlier words are kept, so "harry po" can
+     * complete to "harry potter".
+     */
+    public List<String> autocomplete(String prefix, int k) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            String lower = prefix.toLowerCase();
+            int start = lower.length();
+            while (start > 0 && Character.isLetterOrDigit(lower.charAt(start - 1))) {
+                start--;
+            }
+            if (start == lower.length()) {
+                return new ArrayList<>();
+            }
+            List<String> words;
+            catalogLock.readLock().lock();
+            try {
+                words = terms.complete(lower.substring(start), k);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+            List<String> result = new ArrayList<>(words.size());
+            for (String word : words) {
+                result.add(lower.substring(0, start) + word);
+            }
+            return result;
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.AUTOCOMPLETE, startNanos);
+            }
+        }
+    }
+
+    /**
+     * Typo tolerant search: books whose title or author contains, for every word of the
+     * query, a word within {@code maxEdits} edits of it. Short words get fewer edits (none
+     * up to 2 letters, one up to 5), as nearly everything is a couple of edits away from
+     * them. Closest matches come first.
+     *
+     * The trie turns each query word into the catalog words it could mean, and the
+     * trigram index fetches the books for the rarest of them. Words of one or two letters
+     * have no trigram, so they are skipped when narrowing: a book is not fetched through
+     * them, though they still have to match. Only a query made of nothing but such
+     * words fetches its books through them, from the trie's own lists of the books
+     * each short word appears in.
+     */
+    public List<Book> fuzzySearch(String query, int maxEdits) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            List<String> words = TermTrie.terms(query);
+            if (words.isEmpty()) {
+                return searchBooks(query);
+            }
+            catalogLock.readLock().lock();
+            try {
+                List<Map<String, Integer>> alternatives = new ArrayList<>(words.size());
+                Map<String, Integer> rarest = null;
+                long rarestBooks = Long.MAX_VALUE;
+                boolean rarestIndexed = false;
+                for (String word : words) {
+                    int edits = Math.min(maxEdits, word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2);
+                    Map<String, Integer> similar = terms.similar(word, edits);
+                    if (similar.isEmpty()) {
+                        return new ArrayList<>();
+                    }
+                    // a word the trigram index can narrow by always beats one it cannot
+                    long matches = 0;
+                    boolean indexed = false;
+                    for (String term : similar.keySet()) {
+                        if (term.length() >= SearchIndex.GRAM) {
+                            if (!indexed) {
+                                matches = 0;
+                                indexed = true;
+                            }
+                            matches += terms.count(term);
+                        } else if (!indexed) {
+                            matches += terms.count(term);
+                        }
+                    }
+                    if ((indexed && !rarestIndexed) || (indexed == rarestIndexed && matches < rarestBooks)) {
+                        rarestBooks = matches;
+                        rarest = similar;
+                        rarestIndexed = indexed;
+                    }
+                    alternatives.add(similar);
+                }
+
+                Set<Book> candidates = new LinkedHashSet<>();
+                for (String term : rarest.keySet()) {
+                    if (term.length() >= SearchIndex.GRAM) {
+                        candidates.addAll(searchIndex.search(term));
+                    } else if (!rarestIndexed) {
+                        candidates.addAll(terms.books(term));
+                    }
+                }
+                List<Book> result = new ArrayList<>();
+                Map<Book, Integer> distance = new HashMap<>();
+                for (Book book : candidates) {
+                    Set<String> bookWords = bookTerms(book);
+                    int total = 0;
+                    for (Map<String, Integer> similar : alternatives) {
+                        int closest = Integer.MAX_VALUE;
+                        for (String word : bookWords) {
+                            Integer edits = similar.get(word);
+                            if (edits != null && edits < closest) {
+                                closest = edits;
+                            }
+                        }
+                        if (closest == Integer.MAX_VALUE) {
+                            total = -1;
+                            break;
+                        }
+                        total += closest;
+                    }
+                    if (total >= 0) {
+                        result.add(book);
+                        distance.put(book, total);
+                    }
+                }
+                result.sort(Comparator.comparingInt(distance::get));
+                return result;
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.FUZZY_SEARCH, startNanos);
+            }
+        }
+    }
+
+    /**
+     * One page of {@link #searchBooks(String)}: at most {@code limit} matches in the same
+     * order, starting where the page that returned {@code continuationToken} stopped
+     * (null for the first page). Only as much of the index is read as the page needs.
+     */
+    public Page<Book> searchBooks(String query, int limit, String continuationToken) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (continuationToken == null) {
+            searchPopularity.record(normalizeQuery(query));
+        }
+        catalogLock.readLock().lock();
+        try {
+            // the token is the serial of the next match, which compactions of the index leave alone
+            int from = continuationToken == null ? 0 : searchIndex.resume(parseSerial(continuationToken));
+            List<Book> items = new ArrayList<>(Math.min(limit, 1024));
+            int next = searchIndex.search(query, from, limit, items);
+            return new Page<>(items, next < 0 ? null : Long.toString(searchIndex.serial(next)));
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lazy version of {@link #searchBooks(String)}. Matches are fetched in small batches
+     * as the stream is consumed, so a short-circuiting stream ({@code limit},
+     * {@code findFirst}, ...) stops the search early.
+     */
+    public Stream<Book> streamSearch(String query) {
+        Iterator<Book> iterator = new Iterator<>() {
+            private final List<Book> batch = new ArrayList<>();
+            private int index;
+            private String token;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (index == batch.size() && !exhausted) {
+                    Page<Book> page = searchBooks(query, STREAM_BATCH, token);
+                    batch.clear();
+                    batch.addAll(page.getItems());
+                    index = 0;
+                    token = page.getContinuationToken();
+                    exhausted = token == null;
+                }
+                return index < batch.size();
+            }
+
+            @Override
+            public Book next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(index++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * The {@code k} best matches for {@code query} according to {@code order}. Every match
+     * is looked at, but only {@code k} of them are ever held at once.
+     */
+    public List<Book> topBooks(String query, int k, Comparator<? super Book> order) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        // max-heap on order, the root is the worst of the current best k
+        PriorityQueue<Book> best = new PriorityQueue<>(k + 1, order.reversed());
+        streamSearch(query).forEach(book -> {
+            if (best.size() < k) {
+                best.add(book);
+            } else if (order.compare(book, best.peek()) < 0) {
+                best.poll();
+                best.add(book);
+            }
+        });
+        List<Book> result = new ArrayList<>(best);
+        result.sort(order);
+        return result;
+    }
+
+    public BorrowResult borrowBook(User user, Book book) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            BorrowResult result = lend(user, book);
+            settle();
+            return result;
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.BORROW, startNanos);
+            }
+        }
+    }
+
+    private BorrowResult lend(User user, Book book) {
+        BorrowResult result = borrowBook(user, book, loans.now() + loans.getLoanPeriodMillis());
+        if (result.isSuccess()) {
+            borrowPopularity.record(book.getISBN());
+        }
+        return result;
+    }
+
+    // replay passes the logged due time so a recovered loan keeps its original due date
+    BorrowResult borrowBook(User user, Book book, long dueMillis) {
+        // the CAS in Book decides the winner, the book's monitor keeps the ledger and listener events in order
+        synchronized (book) {
+            BorrowResult result = user.tryBorrow(book);
+            if (result.isSuccess()) {
+                // a hold the user had on the book is used up by getting it
+                holds.cancel(user, book);
+                loans.open(user, book, dueMillis);
+                for (LibraryListener listener : listeners) {
+                    listener.bookBorrowed(user, book);
+                }
+            }
+            return result;
+        }
+    }
+
+    public BorrowResult returnBook(User user, Book book) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            BorrowResult result = returnBook(user, book, true);
+            settle();
+            return result;
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.RETURN, startNanos);
+            }
+        }
+    }
+
+    /**
+     * With {@code handOff} a book someone holds goes straight to the first holder in
+     * line; replay turns it off because the log already has that holder's borrow.
+     */
+    BorrowResult returnBook(User user, Book book, boolean handOff) {
+        synchronized (book) {
+            if (!user.release(book)) {
+                return BorrowResult.NOT_BORROWED;
+            }
+            loans.close(book);
+            User holder = handOff ? holds.next(book, this::isMember) : null;
+            if (holder == null) {
+                book.tryReturn();
+            }
+            for (LibraryListener listener : listeners) {
+                listener.bookReturned(user, book);
+            }
+            if (holder != null) {
+                // the book stays borrowed throughout, so nobody can grab it between the two loans
+                holder.receive(book);
+                loans.open(holder, book, loans.now() + loans.getLoanPeriodMillis());
+                borrowPopularity.record(book.getISBN());
+                for (LibraryListener listener : listeners) {
+                    listener.bookBorrowed(holder, book);
+                }
+            }
+            return BorrowResult.SUCCESS;
+        }
+    }
+
+    /**
+     * Borrows the book if it is available, otherwise queues the user for it. Holds are
+     * served first come first served: returning the book hands it directly to the first
+     * user in line. Placing a hold takes no lock, so many users can queue for one
+     * popular book at once.
+     */
+    public BorrowResult reserveBook(User user, Book book) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            if (book.isAvailable()) {
+                BorrowResult result = borrowBook(user, book);
+                if (result.isSuccess()) {
+                    return result;
+                }
+            }
+            if (!placeHold(user, book)) {
+                return BorrowResult.ALREADY_QUEUED;
+            }
+            for (LibraryListener listener : listeners) {
+                listener.holdPlaced(user, book);
+            }
+            // a return that ran just before the hold was queued saw nobody waiting
+            if (book.isAvailable()) {
+                fulfillHolds(book);
+            }
+            settle();
+            return holds.isQueued(user, book) ? BorrowResult.HOLD_PLACED : BorrowResult.SUCCESS;
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.RESERVE, startNanos);
+            }
+        }
+    }
+
+    // silent, also used by replay
+    boolean placeHold(User user, Book book) {
+        return !user.hasBorrowed(book) && holds.place(user, book);
+    }
+
+    public boolean cancelHold(User user, Book book) {
+        if (!holds.cancel(user, book)) {
+            return false;
+        }
+        for (LibraryListener listener : listeners) {
+            listener.holdCancelled(user, book);
+        }
+        settle();
+        return true;
+    }
+
+    /** Users waiting for the book, first in line first. */
+    public List<User> getHolders(Book book) {
+        return holds.holders(book);
+    }
+
+    Set<Book> heldBooks() {
+        return holds.books();
+    }
+
+    // the first holder's hold is only used up if their borrow goes through, otherwise they stay first in line
+    private void fulfillHolds(Book book) {
+        synchronized (book) {
+            if (book.isAvailable()) {
+                holds.serve(book, this::isMember, holder -> lend(holder, book).isSuccess());
+            }
+        }
+    }
+
+    // holds of removed users are skipped
+    private boolean isMember(User user) {
+        return usersById.get(user.getId()) == user;
+    }
+
+    /** Starts recording per-operation latencies, or returns the metrics already being recorded. */
+    public synchronized LibraryMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new LibraryMetrics(name);
+        }
+        return metrics;
+    }
+
+    public synchronized void disableMetrics() {
+        if (metrics != null) {
+            metrics.close();
+            metrics = null;
+        }
+    }
+
+    public LibraryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Up to {@code k} books borrowed most often lately, most popular first. Counts
+     * halve every week, so this follows current demand rather than all-time totals.
+     * Books removed from the catalog are left out.
+     */
+    public List<Book> mostBorrowed(int k) {
+        List<Book> result = new ArrayList<>(k);
+        for (PopularityTracker.Entry entry : borrowPopularity.top(k)) {
+            Book book = storage.get(entry.getKey());
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    /** Up to {@code k} most searched queries lately, lowercased and trimmed, with their counts. */
+    public List<PopularityTracker.Entry> mostSearched(int k) {
+        return searchPopularity.top(k);
+    }
+
+    public PopularityTracker getBorrowPopularity() {
+        return borrowPopularity;
+    }
+
+    public PopularityTracker getSearchPopularity() {
+        return searchPopularity;
+    }
+
+    private static String normalizeQuery(String query) {
+        return query.trim().toLowerCase();
+    }
+
+    public CacheStats searchCacheStats() {
+        return searchCache.stats();
+    }
+
+    /** Open loans with their due dates. */
+    public LoanLedger getLoans() {
+        return loans;
+    }
+
+    public List<Loan> overdueLoans() {
+        return loans.overdueLoans();
+    }
+
+    // human readable outcome of an operation, printed by ConsoleListener.STANDARD_OUT unless it was removed
+    // runs once an operation has released every lock it took, see LibraryListener.changesApplied()
+    private void settle() {
+        for (LibraryListener listener : listeners) {
+            listener.changesApplied();
+        }
+    }
+
+    void message(String text) {
+        for (LibraryListener listener : listeners) {
+            listener.message(text);
+        }
+    }
+
+    public void addListener(LibraryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(LibraryListener listener) {
+        listeners.remove(listener);
+    }
+
+    Iterable<Book> allBooks() {
+        return storage.books();
+    }
+
+    Iterable<User> allUsers() {
+        return usersById.values();
     }
 
     // public Book findBook (String isbn) {
@@ -64,36 +839,144 @@ public class Library {
     // }
 
     public Book findBook (String isbn) {
-        return books.stream()
-                .filter(book -> book.getISBN().equals(isbn))
-                .findFirst()
-                .orElse(null);
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            return bookFilter.mightContain(isbn) ? storage.get(isbn) : null;
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.FIND_BOOK, startNanos);
+            }
+        }
+    }
+
+    /**
+     * Looks up many ISBNs in one pass. The result maps every ISBN that is catalogued to
+     * its book, in the order of {@code isbns}; unknown ISBNs are left out, most of them
+     * rejected by the membership filter alone.
+     */
+    public Map<String, Book> findBooks(Collection<String> isbns) {
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            KeyFilter filter = bookFilter;
+            Map<String, Book> found = new LinkedHashMap<>();
+            for (String isbn : isbns) {
+                if (filter.mightContain(isbn)) {
+                    Book book = storage.get(isbn);
+                    if (book != null) {
+                        found.put(isbn, book);
+                    }
+                }
+            }
+            return found;
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.FIND_BOOKS, startNanos);
+            }
+        }
     }
 
     public User findUser (String id) {
-        return users.stream()
-                    .filter(user -> user.getId().equals(id))
-                    .findFirst()
-                    .orElse(null);
+        LibraryMetrics metrics = this.metrics;
+        long startNanos = metrics != null ? System.nanoTime() : 0;
+        try {
+            return userFilter.mightContain(id) ? usersById.get(id) : null;
+        } finally {
+            if (metrics != null) {
+                metrics.record(LibraryMetrics.Operation.FIND_USER, startNanos);
+            }
+        }
     }
 
     public List<Book> getAvaliableBooks() {
-        return books.stream()
-                    .filter(Book::isAvailable) // book -> book.isAvailable()
-                    .collect(Collectors.toList());
+        List<Book> result = new ArrayList<>(countAvailable());
+        availableBooks().forEach(result::add);
+        return result;
     }
 
     public List<Book> getBorrowBooks() {
-        return books.stream()
-                    .filter(book -> !book.isAvailable())
-                    .collect(Collectors.toList());
+        List<Book> result = new ArrayList<>(countBorrowed());
+        borrowedBooks().forEach(result::add);
+        return result;
+    }
+
+    public Page<Book> getAvaliableBooks(int limit, String continuationToken) {
+        return slotPage(true, limit, continuationToken);
+    }
+
+    public Page<Book> getBorrowBooks(int limit, String continuationToken) {
+        return slotPage(false, limit, continuationToken);
+    }
+
+    public Stream<Book> streamAvailableBooks() {
+        return StreamSupport.stream(availableBooks().spliterator(), false);
+    }
+
+    public Stream<Book> streamBorrowedBooks() {
+        return StreamSupport.stream(borrowedBooks().spliterator(), false);
+    }
+
+    // slots are weakly consistent: a book moved into an earlier slot by a removal can be skipped
+    private Page<Book> slotPage(boolean wantAvailable, int limit, String continuationToken) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int from = continuationToken == null ? 0 : parseToken(continuationToken, 1)[0];
+        BookSlots.SlotIterator iterator = books.iterator(wantAvailable, from);
+        List<Book> items = new ArrayList<>(Math.min(limit, 1024));
+        while (items.size() < limit && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        return new Page<>(items, iterator.hasNext() ? Integer.toString(iterator.nextSlot()) : null);
+    }
+
+    private static long parseSerial(String token) {
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed continuation token: " + token, e);
+        }
+    }
+
+    private static int[] parseToken(String token, int parts) {
+        String[] fields = token.split("\\.");
+        if (fields.length != parts) {
+            throw new IllegalArgumentException("Malformed continuation token: " + token);
+        }
+        int[] values = new int[parts];
+        try {
+            for (int i = 0; i < parts; i++) {
+                values[i] = Integer.parseInt(fields[i]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed continuation token: " + token, e);
+        }
+        return values;
+    }
+
+    public int countAvailable() {
+        return books.countAvailable();
+    }
+
+    public int countBorrowed() {
+        return Math.max(0, books.size() - books.countAvailable());
+    }
+
+    // live, weakly consistent views over the availability bits, nothing is copied
+    public Iterable<Book> availableBooks() {
+        return () -> books.iterator(true);
+    }
+
+    public Iterable<Book> borrowedBooks() {
+        return () -> books.iterator(false);
     }
 
     @Override
     public String toString() {
         return "Library{" +
                 "books=" + books.size() +
-                ", users=" + users.size() +
+                ", users=" + usersById.size() +
                 '}';
     }
 }
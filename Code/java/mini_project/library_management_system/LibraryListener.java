@@ -0,0 +1,49 @@
+package mini_project.library_management_system;
+
+/**
+ * Receives every successful mutation of a {@link Library}, in the order they were applied,
+ * plus the messages the library, its books and users used to print. Callbacks run on the
+ * mutating thread while the change is still being made, so they should be quick; wrap a
+ * slow listener in an {@link AsyncLibraryListener}.
+ */
+public interface LibraryListener {
+    default void bookAdded(Book book) {
+    }
+
+    default void bookRemoved(Book book) {
+    }
+
+    default void userAdded(User user) {
+    }
+
+    default void userRemoved(User user) {
+    }
+
+    default void bookBorrowed(User user, Book book) {
+    }
+
+    default void bookReturned(User user, Book book) {
+    }
+
+    default void holdPlaced(User user, Book book) {
+    }
+
+    default void holdCancelled(User user, Book book) {
+    }
+
+    // a loan passed its due date; runs on whichever thread moved the loan ledger forward
+    default void loanOverdue(Loan loan) {
+    }
+
+    /**
+     * The operation that made the changes reported above has released the library's
+     * locks; called on the same thread. Work that must not run under those locks, like
+     * waiting for a write to reach the disk, belongs here.
+     */
+    default void changesApplied() {
+    }
+
+    // human readable outcome of an operation, e.g. "Added book: ..." or "Book not found: ..."
+    default void message(String text) {
+    }
+}
@@ -1,14 +1,31 @@
 package mini_project.library_management_system;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 
 public class LibraryManager {
     private Library library;
     private Scanner scanner;
 
     public LibraryManager() {
-        this.library = new Library("Learn Java");
+        this(new Library("Learn Java"));
+    }
+
+    public LibraryManager(Library library) {
+        this.library = library;
         this.scanner = new Scanner(System.in);
     }
     
@@ -30,6 +47,11 @@ public class LibraryManager {
                 case 8 -> listAvaliableBooks();
                 case 9 -> listBorrowedBooks();
                 case 10 -> searchUser();
+                case 11 -> importCatalog();
+                case 12 -> listOverdueLoans();
+                case 13 -> reserveBook();
+                case 14 -> cancelHold();
+                case 15 -> listPopular();
                 case 0 -> running = false;
                 default -> System.out.println("Invalid choice. Please try again.");
             }
@@ -48,6 +70,11 @@ public class LibraryManager {
         System.out.println("8. List available books");
         System.out.println("9. List borrowed books");
         System.out.println("10. Search for Users");
+        System.out.println("11. Import books from a CSV file");
+        System.out.println("12. List overdue loans");
+        System.out.println("13. Reserve a book");
+        System.out.println("14. Cancel a reservation");
+        System.out.println("15. Show the most borrowed books and searches");
         System.out.println("0. Exit");
     }
 
@@ -93,6 +120,13 @@ public class LibraryManager {
         List<Book> results = library.searchBooks(query);
         if (results.isEmpty()) {
             System.out.println("No books found matching the query.");
+            List<Book> closest = library.fuzzySearch(query, 2);
+            if (!closest.isEmpty()) {
+                System.out.println("Closest matches:");
+                for (Book book : closest.subList(0, Math.min(10, closest.size()))) {
+                    System.out.println(book);
+                }
+            }
         } else {
             System.out.println("Search results:");
             for (Book book : results) {
@@ -149,7 +183,11 @@ public class LibraryManager {
             return;
         }
 
-        user.borrowBook(book);
+        if (library.borrowBook(user, book).isSuccess()) {
+            System.out.println(user.getName() + " has borrowed: " + book.getTitle());
+        } else {
+            System.out.println("Sorry, " + book.getTitle() + " is not available for borrowing.");
+        }
     }
 
     private void returnBook() {
@@ -167,32 +205,196 @@ public class LibraryManager {
             return;
         }
 
-        user.returnBook(book);
+        if (library.returnBook(user, book).isSuccess()) {
+            System.out.println(user.getName() + " has returned: " + book.getTitle());
+            Loan next = library.getLoans().getLoan(book);
+            if (next != null) {
+                System.out.println("It went straight to " + next.getUser().getName() + ", who had it on hold.");
+            }
+        } else {
+            System.out.println(user.getName() + " did not borrow: " + book.getTitle());
+        }
+    }
+
+    private void reserveBook() {
+        String userId = getStringInput("Enter Id of the user who wants to reserve a book: ");
+        User user = library.findUser(userId);
+        if (user == null) {
+            System.out.println("User not found.");
+            return;
+        }
+
+        String bookISBN = getStringInput("Enter the ISBN of the book to reserve: ");
+        Book book = library.findBook(bookISBN);
+        if (book == null) {
+            System.out.println("Book not found.");
+            return;
+        }
+
+        switch (library.reserveBook(user, book)) {
+            case SUCCESS -> System.out.println(user.getName() + " has borrowed: " + book.getTitle());
+            case HOLD_PLACED -> System.out.println(user.getName() + " is number " + (library.getHolders(book).indexOf(user) + 1)
+                    + " in line for: " + book.getTitle());
+            default -> System.out.println(user.getName() + " already has or is waiting for: " + book.getTitle());
+        }
+    }
+
+    private void cancelHold() {
+        String userId = getStringInput("Enter Id of the user: ");
+        User user = library.findUser(userId);
+        if (user == null) {
+            System.out.println("User not found.");
+            return;
+        }
+
+        String bookISBN = getStringInput("Enter the ISBN of the reserved book: ");
+        Book book = library.findBook(bookISBN);
+        if (book == null) {
+            System.out.println("Book not found.");
+            return;
+        }
+
+        if (library.cancelHold(user, book)) {
+            System.out.println(user.getName() + " cancelled the hold on: " + book.getTitle());
+        } else {
+            System.out.println(user.getName() + " has no hold on: " + book.getTitle());
+        }
+    }
+
+    private void importCatalog() {
+        String path = getStringInput("Enter the path of the CSV file (title,author,isbn): ");
+        try {
+            CatalogLoader.LoadResult result = CatalogLoader.load(library, Paths.get(path));
+            System.out.println("Imported " + result.getAdded() + " of " + result.getRows() + " rows in "
+                    + result.getElapsedMillis() + " ms (" + String.format("%.0f", result.getRowsPerSecond()) + " rows/sec).");
+            if (result.getDuplicates() > 0 || result.getMalformed() > 0) {
+                System.out.println("Skipped " + result.getDuplicates() + " duplicate and "
+                        + result.getMalformed() + " malformed rows.");
+            }
+        } catch (IOException e) {
+            System.out.println("Could not import the file: " + e.getMessage());
+        }
     }
 
     private void listAvaliableBooks() {
-        System.out.println("Here are the avaliable books: ");
-        
-        List<Book> avaliableBooks = library.getAvaliableBooks();
+        System.out.println("Here are the avaliable books (" + library.countAvailable() + "): ");
 
-        for (Book book : avaliableBooks) {
+        for (Book book : library.availableBooks()) {
             System.out.println(book);
         }
     }
 
-    private void listBorrowedBooks() {
-        System.out.println("Here are the borrowed books: ");
+    private void listOverdueLoans() {
+        List<Loan> overdue = library.overdueLoans();
+        System.out.println("Here are the overdue loans (" + overdue.size() + "): ");
 
-        List<Book> borroweBooks = library.getBorrowBooks();
+        for (Loan loan : overdue) {
+            System.out.println(loan.getUser().getName() + " - " + loan.getBook().getTitle()
+                    + ", due " + Instant.ofEpochMilli(loan.getDueMillis()));
+        }
+    }
 
-        for (Book book : borroweBooks) {
+    private void listPopular() {
+        System.out.println("Most borrowed books: ");
+        for (Book book : library.mostBorrowed(10)) {
             System.out.println(book);
         }
+
+        System.out.println("Most searched: ");
+        for (PopularityTracker.Entry entry : library.mostSearched(10)) {
+            System.out.println(entry.getKey() + " (" + entry.getCount() + ")");
+        }
+    }
+
+    private void listBorrowedBooks() {
+        System.out.println("Here are the borrowed books (" + library.countBorrowed() + "): ");
+
+        for (Book book : library.borrowedBooks()) {
+            System.out.println(book);
+        }
+    }
+
+    // runs a command script (or stdin for "-") and reports the throughput on stderr
+    private static void runBatch(Library library, String script) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8);
+        BatchRunner.BatchResult result;
+        try (Reader in = script.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)) {
+            result = new BatchRunner(library).run(in, out);
+        }
+        System.err.println("Ran " + result.getCommands() + " commands in " + result.getElapsedMillis() + " ms ("
+                + String.format("%.0f", result.getCommandsPerSecond()) + " commands/sec, "
+                + result.getErrors() + " invalid).");
+    }
+
+    // serves the library on localhost until stdin is closed or "quit" is typed
+    private static void serve(Library library, int port) throws IOException {
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        try (LibraryServer server = new LibraryServer(library, port)) {
+            System.out.println("Serving " + library.getLibraryName() + " on localhost:" + server.getPort() + ", type quit to stop.");
+            Scanner console = new Scanner(System.in);
+            while (console.hasNextLine() && !console.nextLine().trim().equalsIgnoreCase("quit")) {
+                // keep serving
+            }
+        }
+    }
+
+    private static void start(Library library, String script, Integer port) throws IOException {
+        if (script != null) {
+            runBatch(library, script);
+        } else if (port != null) {
+            serve(library, port);
+        } else {
+            new LibraryManager(library).run();
+        }
+    }
+
+    // records operation latencies, publishes them over JMX and prints them to stderr every few seconds
+    private static void enableMetrics(Library library, int seconds) {
+        LibraryMetrics metrics = library.enableMetrics();
+        try {
+            metrics.registerMBeans();
+        } catch (JMException e) {
+            System.err.println("Could not register metrics with JMX: " + e.getMessage());
+        }
+        metrics.startReporting(System.err, seconds, TimeUnit.SECONDS);
     }
 
-    public static void main(String[] args) {
-        LibraryManager manager = new LibraryManager();
-        manager.run();
+    // usage: LibraryManager [--batch <script|-> | --serve <port>] [--metrics <seconds>] [data directory]
+    public static void main(String[] args) throws IOException {
+        String script = null;
+        Integer port = null;
+        int metricsSeconds = 0;
+        String dataDir = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch") && i + 1 < args.length) {
+                script = args[++i];
+            } else if (args[i].equals("--serve") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--metrics") && i + 1 < args.length) {
+                metricsSeconds = Integer.parseInt(args[++i]);
+            } else {
+                dataDir = args[i];
+            }
+        }
+
+        if (dataDir == null) {
+            Library library = new Library("Learn Java");
+            if (metricsSeconds > 0) {
+                enableMetrics(library, metricsSeconds);
+            }
+            start(library, script, port);
+            return;
+        }
+
+        // a data directory keeps the library across restarts
+        try (LibraryStore store = LibraryStore.open(Paths.get(dataDir), "Learn Java")) {
+            if (metricsSeconds > 0) {
+                enableMetrics(store.getLibrary(), metricsSeconds);
+            }
+            start(store.getLibrary(), script, port);
+        }
     }
 
 }
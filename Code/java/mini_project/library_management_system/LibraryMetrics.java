@@ -0,0 +1,132 @@
+package mini_project.library_management_system;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-operation latency histograms of a {@link Library}, switched on with
+ * {@link Library#enableMetrics()}. While metrics are off every operation pays one
+ * volatile read.
+ *
+ * Each operation can be registered as an {@link OperationStatsMBean} under
+ * {@code mini_project.library:type=Operation,library=<name>,name=<operation>}, and
+ * {@link #startReporting} prints a table of all operations at a fixed rate.
+ */
+public class LibraryMetrics implements Closeable {
+
+    public enum Operation {
+        FIND_BOOK,
+        FIND_BOOKS,
+        FIND_USER,
+        SEARCH,
+        AUTOCOMPLETE,
+        FUZZY_SEARCH,
+        ADD_BOOK,
+        REMOVE_BOOK,
+        BORROW,
+        RETURN,
+        RESERVE
+    }
+
+    private final String libraryName;
+    private final Map<Operation, OperationStats> stats;
+    private final List<ObjectName> registered;
+    private ScheduledExecutorService reporter;
+
+    LibraryMetrics(String libraryName) {
+        this.libraryName = libraryName;
+        this.stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats(operation.name()));
+        }
+        this.registered = new ArrayList<>();
+    }
+
+    void record(Operation operation, long startNanos) {
+        stats.get(operation).record(startNanos);
+    }
+
+    public OperationStats get(Operation operation) {
+        return stats.get(operation);
+    }
+
+    /** Registers one MBean per operation with the platform MBean server. */
+    public synchronized void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationStats operation : stats.values()) {
+            ObjectName name = new ObjectName("mini_project.library:type=Operation,library="
+                    + ObjectName.quote(libraryName) + ",name=" + operation.getName());
+            if (!server.isRegistered(name)) {
+                server.registerMBean(operation, name);
+                registered.add(name);
+            }
+        }
+    }
+
+    /** Prints {@link #dump()} to {@code out} every {@code period}, skipping operations never called. */
+    public synchronized void startReporting(PrintStream out, long period, TimeUnit unit) {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "library-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> out.print(dump()), period, period, unit);
+    }
+
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("--- %s operations (us) ---%n", libraryName));
+        text.append(String.format("%-14s %10s %9s %9s %9s %9s %9s %10s%n",
+                "operation", "count", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (OperationStats operation : stats.values()) {
+            LatencyHistogram.Snapshot snapshot = operation.snapshot();
+            if (snapshot.getCount() == 0) {
+                continue;
+            }
+            text.append(String.format("%-14s %10d %9.1f %9.1f %9.1f %9.1f %9.1f %10.1f%n",
+                    operation.getName(), snapshot.getCount(), snapshot.getMeanNanos() / 1000,
+                    snapshot.getPercentileNanos(50) / 1000.0, snapshot.getPercentileNanos(90) / 1000.0,
+                    snapshot.getPercentileNanos(99) / 1000.0, snapshot.getPercentileNanos(99.9) / 1000.0,
+                    snapshot.getMaxNanos() / 1000.0));
+        }
+        return text.toString();
+    }
+
+    public void reset() {
+        for (OperationStats operation : stats.values()) {
+            operation.reset();
+        }
+    }
+
+    /** Stops the periodic report and unregisters the MBeans. */
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // already gone
+            }
+        }
+        registered.clear();
+    }
+}
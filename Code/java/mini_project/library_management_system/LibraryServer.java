@@ -0,0 +1,126 @@
+package mini_project.library_management_system;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves a {@link Library} to many clients over TCP on localhost.
+ *
+ * The protocol is line based and speaks the {@link BatchRunner} command language: a
+ * client sends one command per line and gets the result lines back followed by an empty
+ * line. Invalid commands answer {@code ERROR <line>}, {@code QUIT} closes the connection.
+ *
+ * Each connection gets its own thread doing plain blocking I/O. On a JDK with virtual
+ * threads that is one virtual thread per connection; older JDKs fall back to a cached
+ * pool of platform threads.
+ */
+public class LibraryServer implements Closeable {
+    private final Library library;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> open;
+    private final Thread acceptor;
+
+    public LibraryServer(Library library, int port) throws IOException {
+        this.library = library;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.connections = newConnectionExecutor();
+        this.open = ConcurrentHashMap.newKeySet();
+        this.acceptor = new Thread(this::acceptLoop, "library-server-accept");
+        this.acceptor.start();
+    }
+
+    /** The bound port, useful when the server was started on port 0. */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() exists from JDK 21 on, looked up so the code still builds on 17
+    static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "library-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                open.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        BatchRunner runner = new BatchRunner(library);
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+                if (!line.isEmpty() && !runner.execute(line, out)) {
+                    out.write("ERROR " + line);
+                    out.newLine();
+                }
+                out.newLine();
+                // pipelined requests are answered together
+                if (!in.ready()) {
+                    out.flush();
+                }
+            }
+        } catch (SocketException e) {
+            // client went away or the server is closing
+        } catch (IOException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : open) {
+            socket.close();
+        }
+        connections.shutdown();
+        try {
+            acceptor.join();
+            connections.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package mini_project.library_management_system;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import mini_project.journal.Journal;
+
+/**
+ * Durable storage for a {@link Library}: a binary write-ahead log of every mutation
+ * plus periodic snapshots that bound how much log has to be replayed on restart.
+ *
+ * Files in the directory are numbered by generation. snapshot-N holds the state as
+ * of the moment wal-N was started, so recovery loads the newest snapshot and replays
+ * wal-N onwards. Snapshots are taken without stopping writers, which is safe because
+ * replaying a record whose effect is already in the snapshot is a no-op.
+ */
+public class LibraryStore implements LibraryListener, Closeable {
+    private static final byte ADD_BOOK = 1;
+    private static final byte REMOVE_BOOK = 2;
+    private static final byte ADD_USER = 3;
+    private static final byte REMOVE_USER = 4;
+    private static final byte BORROW = 5;
+    private static final byte RETURN = 6;
+    private static final byte HOLD = 7;
+    private static final byte CANCEL_HOLD = 8;
+    // log generations are wal-N.log, one journal segment each
+    private static final String WAL = "wal";
+
+    private static final int SNAPSHOT_MAGIC_V1 = 0x4C494231; // "LIB1"
+    // LIB2 adds the due time after every loan
+    private static final int SNAPSHOT_MAGIC_V2 = 0x4C494232; // "LIB2"
+    // LIB3 adds the hold queues after the users
+    private static final int SNAPSHOT_MAGIC = 0x4C494233; // "LIB3"
+
+    public enum Durability {
+        ALWAYS(Journal.FsyncPolicy.ALWAYS),
+        INTERVAL(Journal.FsyncPolicy.INTERVAL),
+        NEVER(Journal.FsyncPolicy.NEVER);
+
+        private final Journal.FsyncPolicy policy;
+
+        Durability(Journal.FsyncPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    private final Path dir;
+    private final Library library;
+    private final Journal wal;
+    private final long snapshotEvery;
+    private final ExecutorService snapshotter;
+    private final AtomicBoolean snapshotRunning;
+    // newest record this thread appended and has not waited for, see changesApplied()
+    private final ThreadLocal<long[]> unsynced;
+
+    private LibraryStore(Path dir, Library library, long generation, Durability durability,
+                         long fsyncIntervalMillis, long snapshotEvery) throws IOException {
+        this.dir = dir;
+        this.library = library;
+        this.snapshotEvery = snapshotEvery;
+        // a generation only ends when a snapshot rolls the log
+        this.wal = new Journal(dir, WAL, generation, durability.policy, fsyncIntervalMillis,
+                Long.MAX_VALUE, sealed -> { });
+        this.snapshotter = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "library-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.snapshotRunning = new AtomicBoolean();
+        this.unsynced = ThreadLocal.withInitial(() -> new long[1]);
+    }
+
+    public static LibraryStore open(Path dir, String name) throws IOException {
+        return open(dir, name, Durability.INTERVAL, 10, 1_000_000);
+    }
+
+    /**
+     * Recovers the library stored in {@code dir} (or starts an empty one) and journals
+     * every later mutation. A snapshot is taken in the background once
+     * {@code snapshotEvery} records have been logged since the last one.
+     */
+    public static LibraryStore open(Path dir, String name, Durability durability,
+                                    long fsyncIntervalMillis, long snapshotEvery) throws IOException {
+        return open(dir, () -> new Library(name), durability, fsyncIntervalMillis, snapshotEvery);
+    }
+
+    /**
+     * Like {@link #open(Path, String, Durability, long, long)}, but recovers into the
+     * empty library {@code newLibrary} creates, e.g. one backed by a
+     * {@link CompactCatalog}, so the storage a library was built with survives a restart.
+     */
+    public static LibraryStore open(Path dir, Supplier<Library> newLibrary, Durability durability,
+                                    long fsyncIntervalMillis, long snapshotEvery) throws IOException {
+        Files.createDirectories(dir);
+        Library library = newLibrary.get();
+
+        TreeSet<Long> snapshots = Journal.numbered(dir, "snapshot-", ".dat");
+        long generation = snapshots.isEmpty() ? 0 : snapshots.last();
+        if (!snapshots.isEmpty()) {
+            loadSnapshot(snapshotPath(dir, generation), library);
+        }
+
+        TreeSet<Long> logs = Journal.segments(dir, WAL);
+        for (long logGeneration : logs.tailSet(generation, true)) {
+            replay(Journal.segmentPath(dir, WAL, logGeneration), library);
+            generation = logGeneration;
+        }
+
+        LibraryStore store = new LibraryStore(dir, library, generation, durability, fsyncIntervalMillis, snapshotEvery);
+        library.addListener(store);
+        return store;
+    }
+
+    public Library getLibrary() {
+        return library;
+    }
+
+    /**
+     * Starts a new log generation and writes a snapshot for it, then deletes the
+     * files the snapshot made obsolete once the snapshot's name is durable.
+     */
+    public synchronized void snapshot() throws IOException {
+        long next = wal.roll() + 1;
+
+        Path target = snapshotPath(dir, next);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        writeSnapshot(tmp, library);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the rename has to be on disk before the files it replaces are gone
+        Journal.forceDirectory(dir);
+
+        for (long old : Journal.numbered(dir, "snapshot-", ".dat").headSet(next)) {
+            Files.deleteIfExists(snapshotPath(dir, old));
+        }
+        for (long old : Journal.segments(dir, WAL).headSet(next)) {
+            Files.deleteIfExists(Journal.segmentPath(dir, WAL, old));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        library.removeListener(this);
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+    }
+
+    // listener callbacks, one log record per successful mutation
+
+    @Override
+    public void bookAdded(Book book) {
+        log(ADD_BOOK, book.getTitle(), book.getAuthor(), book.getISBN());
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        log(REMOVE_BOOK, book.getISBN());
+    }
+
+    @Override
+    public void userAdded(User user) {
+        log(ADD_USER, user.getName(), user.getId());
+    }
+
+    @Override
+    public void userRemoved(User user) {
+        log(REMOVE_USER, user.getId());
+    }
+
+    @Override
+    public void bookBorrowed(User user, Book book) {
+        // the ledger entry is opened before listeners run, so the due time is known here
+        Loan loan = library.getLoans().getLoan(book);
+        log(BORROW, loan != null ? loan.getDueMillis() : -1, user.getId(), book.getISBN());
+    }
+
+    @Override
+    public void bookReturned(User user, Book book) {
+        log(RETURN, user.getId(), book.getISBN());
+    }
+
+    @Override
+    public void holdPlaced(User user, Book book) {
+        log(HOLD, user.getId(), book.getISBN());
+    }
+
+    @Override
+    public void holdCancelled(User user, Book book) {
+        log(CANCEL_HOLD, user.getId(), book.getISBN());
+    }
+
+    // with Durability.ALWAYS the operation returns once its records are on disk; operations
+    // from many threads waiting here at once share one fsync
+    @Override
+    public void changesApplied() {
+        long[] ticket = unsynced.get();
+        if (ticket[0] == 0) {
+            return;
+        }
+        try {
+            wal.sync(ticket[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ticket[0] = 0;
+    }
+
+    private void log(byte type, String... fields) {
+        log(type, -1, fields);
+    }
+
+    private void log(byte type, long dueMillis, String... fields) {
+        try {
+            // callbacks run under the library's locks, so the wait for the fsync is left to changesApplied()
+            unsynced.get()[0] = wal.append(out -> encode(out, type, dueMillis, fields));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (wal.recordCount() >= snapshotEvery && snapshotRunning.compareAndSet(false, true)) {
+            snapshotter.execute(() -> {
+                try {
+                    snapshot();
+                } catch (IOException e) {
+                    library.message("Snapshot failed: " + e.getMessage());
+                } finally {
+                    snapshotRunning.set(false);
+                }
+            });
+        }
+    }
+
+    // record payload: type byte + UTF fields [+ due time], the journal adds length and CRC32
+    private static void encode(DataOutputStream out, byte type, long dueMillis, String... fields) throws IOException {
+        out.writeByte(type);
+        for (String field : fields) {
+            out.writeUTF(field);
+        }
+        if (dueMillis >= 0) {
+            out.writeLong(dueMillis);
+        }
+    }
+
+    // replays a log file and cuts off a torn or corrupt tail left by a crash
+    private static void replay(Path file, Library library) throws IOException {
+        long validLength = Journal.read(file, in -> apply(in, library));
+        if (validLength < Files.size(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    // every record is applied idempotently, so replaying one already in the snapshot changes nothing
+    private static void apply(DataInputStream in, Library library) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_BOOK -> library.insertBook(new Book(in.readUTF(), in.readUTF(), in.readUTF()));
+            case REMOVE_BOOK -> {
+                Book book = library.findBook(in.readUTF());
+                if (book != null) {
+                    library.deleteBook(book);
+                }
+            }
+            case ADD_USER -> library.insertUser(new User(in.readUTF(), in.readUTF()));
+            case REMOVE_USER -> {
+                User user = library.findUser(in.readUTF());
+                if (user != null) {
+                    library.deleteUser(user);
+                }
+            }
+            case BORROW, RETURN -> {
+                User user = library.findUser(in.readUTF());
+                Book book = library.findBook(in.readUTF());
+                // borrow records written before due dates existed carry none, their loan starts now
+                long dueMillis = type == BORROW && in.available() >= Long.BYTES ? in.readLong() : -1;
+                if (user != null && book != null) {
+                    if (type == BORROW && dueMillis >= 0) {
+                        library.borrowBook(user, book, dueMillis);
+                    } else if (type == BORROW) {
+                        library.borrowBook(user, book);
+                    } else {
+                        // the holder a return was handed to has a borrow record of its own
+                        library.returnBook(user, book, false);
+                    }
+                }
+            }
+            case HOLD, CANCEL_HOLD -> {
+                User user = library.findUser(in.readUTF());
+                Book book = library.findBook(in.readUTF());
+                if (user != null && book != null) {
+                    if (type == HOLD) {
+                        library.placeHold(user, book);
+                    } else {
+                        library.cancelHold(user, book);
+                    }
+                }
+            }
+            default -> throw new IOException("Unknown log record type " + type);
+        }
+    }
+
+    private static void writeSnapshot(Path file, Library library) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+
+            // counts are unknown up front because writers keep running, so each entry is prefixed by a marker
+            for (Book book : library.allBooks()) {
+                out.writeBoolean(true);
+                out.writeUTF(book.getTitle());
+                out.writeUTF(book.getAuthor());
+                out.writeUTF(book.getISBN());
+            }
+            out.writeBoolean(false);
+
+            for (User user : library.allUsers()) {
+                out.writeBoolean(true);
+                out.writeUTF(user.getName());
+                out.writeUTF(user.getId());
+                List<Book> loans = user.getBorrowedBooks();
+                out.writeInt(loans.size());
+                for (Book book : loans) {
+                    Loan loan = library.getLoans().getLoan(book);
+                    out.writeUTF(book.getISBN());
+                    out.writeLong(loan != null ? loan.getDueMillis() : -1);
+                }
+            }
+            out.writeBoolean(false);
+
+            for (Book book : library.heldBooks()) {
+                List<User> holders = library.getHolders(book);
+                if (holders.isEmpty()) {
+                    continue;
+                }
+                out.writeBoolean(true);
+                out.writeUTF(book.getISBN());
+                out.writeInt(holders.size());
+                for (User user : holders) {
+                    out.writeUTF(user.getId());
+                }
+            }
+            out.writeBoolean(false);
+
+            out.flush();
+            long checksum = checked.getChecksum().getValue();
+            out.writeLong(checksum);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private static void loadSnapshot(Path file, Library library) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V2 && magic != SNAPSHOT_MAGIC_V1) {
+                throw new IOException("Not a library snapshot: " + file);
+            }
+            while (in.readBoolean()) {
+                library.insertBook(new Book(in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+            while (in.readBoolean()) {
+                User user = new User(in.readUTF(), in.readUTF());
+                library.insertUser(user);
+                int loans = in.readInt();
+                for (int i = 0; i < loans; i++) {
+                    Book book = library.findBook(in.readUTF());
+                    long dueMillis = magic != SNAPSHOT_MAGIC_V1 ? in.readLong() : -1;
+                    if (book != null && dueMillis >= 0) {
+                        library.borrowBook(user, book, dueMillis);
+                    } else if (book != null) {
+                        library.borrowBook(user, book);
+                    }
+                }
+            }
+            while (magic == SNAPSHOT_MAGIC && in.readBoolean()) {
+                Book book = library.findBook(in.readUTF());
+                int holders = in.readInt();
+                for (int i = 0; i < holders; i++) {
+                    User user = library.findUser(in.readUTF());
+                    if (book != null && user != null) {
+                        library.placeHold(user, book);
+                    }
+                }
+            }
+            long expected = checked.getChecksum().getValue();
+            if (new DataInputStream(raw).readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+        }
+    }
+
+    private static Path snapshotPath(Path dir, long generation) {
+        return dir.resolve("snapshot-" + generation + ".dat");
+    }
+}
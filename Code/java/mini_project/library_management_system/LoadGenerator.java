@@ -0,0 +1,190 @@
+package mini_project.library_management_system;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator for {@link LibraryServer}. Seeds the server with books and users, then
+ * keeps a number of connections busy with a mix of lookups, searches and borrow/return
+ * round trips for a fixed time and reports throughput and latency percentiles.
+ *
+ * Usage: {@code LoadGenerator [port] [connections] [seconds] [books]}. Without a port it
+ * starts an in-process server on a free localhost port.
+ */
+public class LoadGenerator {
+    private final int port;
+    private final int books;
+
+    public LoadGenerator(int port, int books) {
+        this.port = port;
+        this.books = books;
+    }
+
+    public void seed() throws IOException {
+        try (Connection connection = new Connection(port)) {
+            StringBuilder batch = new StringBuilder();
+            int pending = 0;
+            for (int i = 0; i < books; i++) {
+                batch.append("ADD_BOOK|Title ").append(i).append("|Author ").append(i % 1000).append("|isbn-").append(i).append('\n');
+                if (++pending == 1000 || i == books - 1) {
+                    connection.pipeline(batch.toString(), pending);
+                    batch.setLength(0);
+                    pending = 0;
+                }
+            }
+        }
+    }
+
+    /** Runs the load and returns per-request latencies in nanoseconds, sorted. */
+    public long[] run(int connections, long durationMillis) throws Exception {
+        ExecutorService executor = LibraryServer.newConnectionExecutor();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        Future<?>[] futures = new Future<?>[connections];
+        long[][] results = new long[connections][];
+        for (int c = 0; c < connections; c++) {
+            int client = c;
+            futures[c] = executor.submit(() -> {
+                results[client] = drive(client, deadline);
+                return null;
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        int total = 0;
+        for (long[] latencies : results) {
+            total += latencies.length;
+        }
+        long[] merged = new long[total];
+        int position = 0;
+        for (long[] latencies : results) {
+            System.arraycopy(latencies, 0, merged, position, latencies.length);
+            position += latencies.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private long[] drive(int client, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[1 << 16];
+        int count = 0;
+        String user = "load-" + client;
+        try (Connection connection = new Connection(port)) {
+            connection.request("ADD_USER|" + user + "|" + user);
+            while (System.nanoTime() < deadline) {
+                int roll = random.nextInt(100);
+                String isbn = "isbn-" + random.nextInt(books);
+                String command;
+                if (roll < 60) {
+                    command = "FIND_BOOK|" + isbn;
+                } else if (roll < 70) {
+                    command = "SEARCH|Title " + random.nextInt(books);
+                } else if (roll < 85) {
+                    command = "BORROW|" + user + "|" + isbn;
+                } else {
+                    command = "RETURN|" + user + "|" + isbn;
+                }
+                long start = System.nanoTime();
+                connection.request(command);
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+
+        Connection(int port) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        void request(String command) throws IOException {
+            pipeline(command + "\n", 1);
+        }
+
+        // sends several commands at once and reads their responses, each ends with an empty line
+        void pipeline(String commands, int responses) throws IOException {
+            out.write(commands);
+            out.flush();
+            while (responses > 0) {
+                String line = in.readLine();
+                if (line == null) {
+                    throw new IOException("Server closed the connection");
+                }
+                if (line.isEmpty()) {
+                    responses--;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.write("QUIT\n");
+            out.flush();
+            socket.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int books = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+
+        LibraryServer server = null;
+        if (port == 0) {
+            Library library = new Library("Load Test");
+            library.removeListener(ConsoleListener.STANDARD_OUT);
+            server = new LibraryServer(library, 0);
+            port = server.getPort();
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(port, books);
+            generator.seed();
+            long[] latencies = generator.run(connections, seconds * 1000L);
+            System.out.printf("%d connections, %d requests in %d s: %.0f requests/sec%n",
+                    connections, latencies.length, seconds, latencies.length / (double) seconds);
+            System.out.printf("latency p50=%.1f us p99=%.1f us p99.9=%.1f us max=%.1f us%n",
+                    percentile(latencies, 50) / 1000.0, percentile(latencies, 99) / 1000.0,
+                    percentile(latencies, 99.9) / 1000.0, percentile(latencies, 100) / 1000.0);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
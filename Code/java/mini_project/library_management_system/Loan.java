@@ -0,0 +1,53 @@
+package mini_project.library_management_system;
+
+/**
+ * One open loan in a {@link LoanLedger}: who borrowed which book and when it is due.
+ */
+public class Loan {
+    private final User user;
+    private final Book book;
+    private final long dueMillis;
+    private volatile boolean overdue;
+
+    // intrusive links into the TimingWheel bucket that holds the loan, guarded by that wheel
+    Loan prev;
+    Loan next;
+    int level = -1;
+    int bucket;
+
+    Loan(User user, Book book, long dueMillis) {
+        this.user = user;
+        this.book = book;
+        this.dueMillis = dueMillis;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public long getDueMillis() {
+        return dueMillis;
+    }
+
+    public boolean isOverdue() {
+        return overdue;
+    }
+
+    void markOverdue() {
+        overdue = true;
+    }
+
+    @Override
+    public String toString() {
+        return "Loan{" +
+                "user='" + user.getId() + '\'' +
+                ", book='" + book.getISBN() + '\'' +
+                ", dueMillis=" + dueMillis +
+                ", overdue=" + overdue +
+                '}';
+    }
+}
@@ -0,0 +1,152 @@
+package mini_project.library_management_system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Open loans of a {@link Library}, indexed by book and by user, each with a due time.
+ *
+ * Lookups read the concurrent indexes without locking. Due times sit in
+ * {@link TimingWheel}s, so finding overdue loans never scans the ledger. The wheels
+ * are striped by book, each behind its own lock, so opening and closing loans of
+ * different books rarely contend and never read the clock. The wheels are moved
+ * forward to the current time by {@link #advance()} and by the overdue queries, and
+ * each loan that falls due on the way is flagged once and handed to the overdue
+ * callback. Call {@link #advance()} from a timer to hear about overdue loans without
+ * asking.
+ */
+public class LoanLedger {
+    private final LongSupplier clock;
+    private final long loanPeriodMillis;
+    private final Consumer<Loan> onOverdue;
+    private final Map<Book, Loan> byBook;
+    private final Map<User, Set<Loan>> byUser;
+    private final Set<Loan> overdue;
+    // a loan lives in the wheel its book hashes to; each wheel is guarded by its own monitor
+    private final TimingWheel[] wheels;
+
+    LoanLedger(LongSupplier clock, long loanPeriodMillis, long tickMillis, Consumer<Loan> onOverdue) {
+        this.clock = clock;
+        this.loanPeriodMillis = loanPeriodMillis;
+        this.onOverdue = onOverdue;
+        this.byBook = new ConcurrentHashMap<>();
+        this.byUser = new ConcurrentHashMap<>();
+        this.overdue = ConcurrentHashMap.newKeySet();
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.wheels = new TimingWheel[stripes];
+        long now = clock.getAsLong();
+        for (int i = 0; i < stripes; i++) {
+            wheels[i] = new TimingWheel(tickMillis, now);
+        }
+    }
+
+    public long getLoanPeriodMillis() {
+        return loanPeriodMillis;
+    }
+
+    long now() {
+        return clock.getAsLong();
+    }
+
+    // caller holds the book's monitor, so open and close of one book never interleave
+    Loan open(User user, Book book, long dueMillis) {
+        Loan loan = new Loan(user, book, dueMillis);
+        Loan previous = byBook.put(book, loan);
+        if (previous != null) {
+            forget(previous);
+        }
+        byUser.computeIfAbsent(user, key -> ConcurrentHashMap.newKeySet()).add(loan);
+        TimingWheel wheel = wheelOf(book);
+        boolean scheduled;
+        synchronized (wheel) {
+            scheduled = wheel.schedule(loan);
+        }
+        if (!scheduled) {
+            expire(loan);
+        }
+        return loan;
+    }
+
+    Loan close(Book book) {
+        Loan loan = byBook.remove(book);
+        if (loan != null) {
+            forget(loan);
+        }
+        return loan;
+    }
+
+    private void forget(Loan loan) {
+        TimingWheel wheel = wheelOf(loan.getBook());
+        synchronized (wheel) {
+            wheel.cancel(loan);
+        }
+        overdue.remove(loan);
+        byUser.computeIfPresent(loan.getUser(), (user, loans) -> {
+            loans.remove(loan);
+            return loans.isEmpty() ? null : loans;
+        });
+    }
+
+    public Loan getLoan(Book book) {
+        return byBook.get(book);
+    }
+
+    public List<Loan> loansOf(User user) {
+        Set<Loan> loans = byUser.get(user);
+        return loans == null ? Collections.emptyList() : new ArrayList<>(loans);
+    }
+
+    public int size() {
+        return byBook.size();
+    }
+
+    public List<Loan> overdueLoans() {
+        advance();
+        return new ArrayList<>(overdue);
+    }
+
+    public int countOverdue() {
+        advance();
+        return overdue.size();
+    }
+
+    /** Expires every loan that fell due up to now; the overdue queries already do this. */
+    public void advance() {
+        long now = clock.getAsLong();
+        List<Loan> expired = new ArrayList<>();
+        for (TimingWheel wheel : wheels) {
+            synchronized (wheel) {
+                wheel.advance(now, expired::add);
+            }
+        }
+        // callbacks run outside the wheel lock
+        for (Loan loan : expired) {
+            expire(loan);
+        }
+    }
+
+    private TimingWheel wheelOf(Book book) {
+        int hash = System.identityHashCode(book);
+        return wheels[(hash ^ (hash >>> 16)) & (wheels.length - 1)];
+    }
+
+    private void expire(Loan loan) {
+        // a loan closed meanwhile is no longer in the index and stays out of the overdue set
+        if (byBook.get(loan.getBook()) != loan) {
+            return;
+        }
+        loan.markOverdue();
+        overdue.add(loan);
+        if (byBook.get(loan.getBook()) != loan) {
+            overdue.remove(loan);
+            return;
+        }
+        onOverdue.accept(loan);
+    }
+}
@@ -0,0 +1,67 @@
+package mini_project.library_management_system;
+
+/**
+ * Latency histogram of one operation, registered with JMX by {@link LibraryMetrics}.
+ * Each getter takes its own snapshot, so values read one by one may be slightly apart.
+ */
+public class OperationStats implements OperationStatsMBean {
+    private final String name;
+    private final LatencyHistogram histogram;
+
+    OperationStats(String name) {
+        this.name = name;
+        this.histogram = new LatencyHistogram();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void record(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.snapshot().getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return histogram.snapshot().getMeanNanos() / 1000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histogram.snapshot().getPercentileNanos(50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return histogram.snapshot().getPercentileNanos(90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histogram.snapshot().getPercentileNanos(99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return histogram.snapshot().getPercentileNanos(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return histogram.snapshot().getMaxNanos() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+    }
+}
@@ -0,0 +1,22 @@
+package mini_project.library_management_system;
+
+/**
+ * JMX view of one instrumented {@link Library} operation; times are in microseconds.
+ */
+public interface OperationStatsMBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
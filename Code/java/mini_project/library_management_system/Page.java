@@ -0,0 +1,38 @@
+package mini_project.library_management_system;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a paginated query. Pass {@link #getContinuationToken()} back to the same
+ * query to get the next page; it is null on the last page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String continuationToken;
+
+    public Page(List<T> items, String continuationToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.continuationToken = continuationToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public boolean hasMore() {
+        return continuationToken != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items.size() +
+                ", hasMore=" + hasMore() +
+                '}';
+    }
+}
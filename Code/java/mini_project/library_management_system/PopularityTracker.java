@@ -0,0 +1,176 @@
+package mini_project.library_management_system;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-decayed popularity of string keys in fixed memory.
+ *
+ * A {@link CountMinSketch} estimates the count of any key, a {@link SpaceSaving}
+ * summary keeps the heaviest keys ordered so {@link #top(int)} costs O(k) and never
+ * sorts the catalog. Every half-life all counts are halved, so an old burst fades
+ * and the rankings follow what is popular now.
+ *
+ * Safe to share between threads. The sketch is updated inline and lock-free. Keys
+ * bound for the summary are buffered in small rings striped by thread and applied in
+ * batches under the summary's lock, once a ring fills up or {@link #top(int)} reads
+ * the ranking, so a hot path pays for the lock once per ring rather than per event.
+ */
+public class PopularityTracker {
+    // slots per ring
+    private static final int BUFFER = 64;
+    // keeps the counters of neighbouring stripes on different cache lines
+    private static final int STRIPE_PAD = 16;
+
+    private final CountMinSketch sketch;
+    private final SpaceSaving summary;
+    private final int stripeMask;
+    // keys the summary has not seen yet, one ring per stripe
+    private final AtomicReferenceArray<String> pending;
+    private final AtomicLongArray writes;
+    private final AtomicLongArray reads;
+    private final LongSupplier clock;
+    private final long halfLifeMillis;
+    private volatile long nextDecayMillis;
+
+    /**
+     * @param capacity       keys the heavy hitter summary tracks, top-k is exact for
+     *                       k well below this on skewed traffic
+     * @param sketchWidth    counters per sketch row
+     * @param halfLifeMillis how long until a count is worth half, 0 or less never decays
+     * @param clock          wall clock in milliseconds
+     */
+    public PopularityTracker(int capacity, int sketchWidth, long halfLifeMillis, LongSupplier clock) {
+        this.sketch = new CountMinSketch(sketchWidth);
+        this.summary = new SpaceSaving(capacity);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.pending = new AtomicReferenceArray<>(stripes * BUFFER);
+        this.writes = new AtomicLongArray(stripes * STRIPE_PAD);
+        this.reads = new AtomicLongArray(stripes * STRIPE_PAD);
+        this.clock = clock;
+        this.halfLifeMillis = halfLifeMillis;
+        this.nextDecayMillis = halfLifeMillis > 0 ? clock.getAsLong() + halfLifeMillis : Long.MAX_VALUE;
+    }
+
+    public void record(String key) {
+        decayIfDue();
+        sketch.add(key);
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        while (!buffer(stripe, key)) {
+            // the ring is full, whoever finds it so moves the backlog into the summary
+            synchronized (summary) {
+                drain();
+            }
+        }
+    }
+
+    private boolean buffer(int stripe, String key) {
+        int at = stripe * STRIPE_PAD;
+        while (true) {
+            long write = writes.get(at);
+            if (write - reads.get(at) >= BUFFER) {
+                return false;
+            }
+            if (writes.compareAndSet(at, write, write + 1)) {
+                pending.set(stripe * BUFFER + (int) (write & (BUFFER - 1)), key);
+                return true;
+            }
+        }
+    }
+
+    // caller holds the summary's lock; a slot claimed but not written yet ends its ring's batch
+    private void drain() {
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            int at = stripe * STRIPE_PAD;
+            long read = reads.get(at);
+            for (long write = writes.get(at); read < write; read++) {
+                int slot = stripe * BUFFER + (int) (read & (BUFFER - 1));
+                String key = pending.get(slot);
+                if (key == null) {
+                    break;
+                }
+                pending.set(slot, null);
+                summary.offer(key);
+            }
+            reads.set(at, read);
+        }
+    }
+
+    /** Decayed count of the key, possibly overcounted but never under. */
+    public long estimate(String key) {
+        decayIfDue();
+        return sketch.estimate(key);
+    }
+
+    /** Up to {@code k} most popular keys, highest count first. */
+    public List<Entry> top(int k) {
+        decayIfDue();
+        synchronized (summary) {
+            drain();
+            return summary.top(k);
+        }
+    }
+
+    public long getHalfLifeMillis() {
+        return halfLifeMillis;
+    }
+
+    private void decayIfDue() {
+        long now = clock.getAsLong();
+        if (now < nextDecayMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (now < nextDecayMillis) {
+                return;
+            }
+            // one halving per half-life that went by, however long nobody looked
+            long periods = (now - nextDecayMillis) / halfLifeMillis + 1;
+            int shift = (int) Math.min(63, periods);
+            sketch.decay(shift);
+            synchronized (summary) {
+                // buffered events happened before the decay point
+                drain();
+                summary.decay(shift);
+            }
+            nextDecayMillis += periods * halfLifeMillis;
+        }
+    }
+
+    /**
+     * A ranked key. The true decayed count lies between {@code count - error} and
+     * {@code count}; error is how much the key may have inherited from the key it
+     * replaced in the summary.
+     */
+    public static final class Entry {
+        private final String key;
+        private final long count;
+        private final long error;
+
+        Entry(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{key=" + key + ", count=" + count + ", error=" + error + "}";
+        }
+    }
+}
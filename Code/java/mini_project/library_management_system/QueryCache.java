@@ -0,0 +1,106 @@
+package mini_project.library_management_system;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of query results, validated against a version number.
+ *
+ * The owner bumps its version whenever a change could alter results; an entry computed
+ * at an older version is a miss and gets recomputed. An entry is inserted before it is
+ * computed, so concurrent misses on one key wait for the first computation instead of
+ * all running it. Results larger than {@code maxResultSize} are returned but not kept,
+ * so a handful of very broad queries cannot pin most of the catalog in memory.
+ */
+class QueryCache<V extends List<?>> {
+    private final int maxResultSize;
+    // guarded by this, access order makes the eldest entry the least recently used
+    private final LinkedHashMap<String, Entry<V>> entries;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    QueryCache(int capacity, int maxResultSize) {
+        this.maxResultSize = maxResultSize;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        this.entries = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                if (size() > capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    V get(String key, long version, Function<String, V> loader) {
+        Entry<V> entry;
+        boolean owner = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null || entry.version != version) {
+                entry = new Entry<>(version);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            hits.increment();
+            try {
+                return entry.result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        misses.increment();
+        V result;
+        try {
+            result = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            drop(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+        if (result.size() > maxResultSize) {
+            drop(key, entry);
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    private synchronized void drop(String key, Entry<V> entry) {
+        entries.remove(key, entry);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    CacheStats stats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private static final class Entry<V> {
+        private final long version;
+        private final CompletableFuture<V> result;
+
+        Entry(long version) {
+            this.version = version;
+            this.result = new CompletableFuture<>();
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package mini_project.library_management_system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Trigram index over title, author and ISBN used by {@link Library#searchBooks(String)}.
+ *
+ * Matching keeps the original semantics: case-insensitive substring on title and
+ * author, case-sensitive substring on ISBN. Trigram postings only produce
+ * candidates, every candidate is verified against the cached lowercase fields, or
+ * against the packed bytes when the books live in a {@link CompactCatalog}.
+ *
+ * Books get increasing doc ids, so every posting list is a sorted int array and
+ * results come out in catalog order. Removal only clears the doc; stale ids are
+ * skipped and dropped once removed docs outnumber live ones.
+ *
+ * Compaction renumbers the docs, so paging hands out each doc's serial instead: a
+ * number that is never reused or renumbered and grows with the doc id. A search
+ * resumes at the first doc whose serial is at least the one it was given, however
+ * many compactions ran in between.
+ */
+class SearchIndex {
+    static final int GRAM = 3;
+    // postings are split by trigram hash so a batch can build every shard on its own thread
+    private static final int SHARD_BITS = 4;
+
+    private Entry[] docs;
+    private int nextDoc;
+    private int live;
+    // serials[doc] for every doc below nextDoc, removed ones included, strictly increasing
+    private long[] serials;
+    private long nextSerial;
+    private final Map<Book, Integer> docIds;
+    private final GramTable[] postings;
+    // null when the books keep their own strings, then every doc caches its lowercase fields
+    private final CompactCatalog catalog;
+
+    SearchIndex(CompactCatalog catalog) {
+        this.catalog = catalog;
+        this.docs = new Entry[1024];
+        this.serials = new long[1024];
+        this.docIds = new HashMap<>();
+        this.postings = new GramTable[1 << SHARD_BITS];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = new GramTable();
+        }
+    }
+
+    void add(Book book) {
+        int doc = newDoc(book);
+        Entry entry = docs[doc];
+        index(entry.lowerTitle(), doc, 0, 1);
+        index(entry.lowerAuthor(), doc, 0, 1);
+        index(book.getISBN(), doc, 0, 1);
+    }
+
+    // bulk version of add: doc ids are handed out in order, then each worker fills its own posting shards
+    void addAll(List<Book> books) {
+        int first = nextDoc;
+        for (Book book : books) {
+            newDoc(book);
+        }
+        int last = nextDoc;
+        int workers = Math.min(postings.length, Runtime.getRuntime().availableProcessors());
+        IntStream.range(0, workers).parallel().forEach(worker -> {
+            for (int doc = first; doc < last; doc++) {
+                Entry entry = docs[doc];
+                index(entry.lowerTitle(), doc, worker, workers);
+                index(entry.lowerAuthor(), doc, worker, workers);
+                index(entry.book.getISBN(), doc, worker, workers);
+            }
+        });
+    }
+
+    private int newDoc(Book book) {
+        if (nextDoc == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+            serials = Arrays.copyOf(serials, docs.length);
+        }
+        int doc = nextDoc++;
+        docs[doc] = new Entry(book, catalog == null);
+        serials[doc] = nextSerial++;
+        docIds.put(book, doc);
+        live++;
+        return doc;
+    }
+
+    void remove(Book book) {
+        Integer doc = docIds.remove(book);
+        if (doc == null) {
+            return;
+        }
+        docs[doc] = null;
+        live--;
+        if (nextDoc - live > live && nextDoc > 1024) {
+            compact();
+        }
+    }
+
+    List<Book> search(String query) {
+        List<Book> results = new ArrayList<>();
+        search(query, 0, Integer.MAX_VALUE, results);
+        return results;
+    }
+
+    /**
+     * Appends up to {@code max} matches whose doc id is at least {@code from}, in doc
+     * order, and stops as soon as it has one more than that.
+     *
+     * @return the doc id to resume from, or -1 when there are no further matches
+     */
+    int search(String query, int from, int max, List<Book> results) {
+        String lowerQuery = query.toLowerCase();
+        int wanted = max == Integer.MAX_VALUE ? max : max + 1;
+        int[] matches;
+
+        // too short to form a trigram, the cached lowercase fields make the scan allocation free
+        if (query.length() < GRAM || lowerQuery.length() < GRAM) {
+            matches = scan(query, lowerQuery, from, wanted);
+        } else {
+            matches = candidates(lowerQuery, query, lowerQuery, from, wanted);
+            if (!lowerQuery.equals(query)) {
+                // title/author match on the lowercased query, ISBN on the query as typed
+                matches = union(matches, candidates(query, query, lowerQuery, from, wanted), wanted);
+            }
+        }
+
+        int count = Math.min(matches.length, max);
+        for (int i = 0; i < count; i++) {
+            results.add(docs[matches[i]].book);
+        }
+        return matches.length > max ? matches[max] : -1;
+    }
+
+    int nextDoc() {
+        return nextDoc;
+    }
+
+    // what a continuation hands out for the doc search() returned, stable across compactions
+    long serial(int doc) {
+        return serials[doc];
+    }
+
+    // the doc a search continuing at this serial starts from; the doc itself may be gone by now
+    int resume(long serial) {
+        int found = Arrays.binarySearch(serials, 0, nextDoc, serial);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private int[] scan(String query, String lowerQuery, int from, int wanted) {
+        int[] result = new int[16];
+        int count = 0;
+        for (int doc = Math.max(0, from); doc < nextDoc && count < wanted; doc++) {
+            Entry entry = docs[doc];
+            if (entry != null && matches(entry, query, lowerQuery)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // only indexes the trigrams whose shard belongs to this worker
+    private void index(String text, int doc, int worker, int workers) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            long gram = gram(text, i);
+            int shard = shard(gram);
+            if (shard % workers == worker) {
+                postings[shard].getOrCreate(gram).add(doc);
+            }
+        }
+    }
+
+    private static int shard(long gram) {
+        return GramTable.mix(gram) >>> (32 - SHARD_BITS);
+    }
+
+    // three UTF-16 chars packed into one long, so indexing allocates no substrings
+    private static long gram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    // up to wanted verified doc ids at or after from, in increasing order
+    private int[] candidates(String probe, String query, String lowerQuery, int from, int wanted) {
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= probe.length(); i++) {
+            long gram = gram(probe, i);
+            Postings list = postings[shard(gram)].get(gram);
+            if (list == null || list.size == 0) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Postings smallest = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        int[] result = new int[Math.min(smallest.size, 16)];
+        int count = 0;
+        next:
+        for (int i = smallest.seek(0, from); i < smallest.size && count < wanted; i++) {
+            int doc = smallest.ids[i];
+            Entry entry = docs[doc];
+            if (entry == null) {
+                continue;
+            }
+            for (int l = 1; l < lists.size(); l++) {
+                Postings other = lists.get(l);
+                cursors[l] = other.seek(cursors[l], doc);
+                if (cursors[l] == other.size || other.ids[cursors[l]] != doc) {
+                    continue next;
+                }
+            }
+            if (matches(entry, query, lowerQuery)) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private boolean matches(Entry entry, String query, String lowerQuery) {
+        return catalog != null ? catalog.matches(entry.book, query, lowerQuery) : entry.matches(query, lowerQuery);
+    }
+
+    private static int[] union(int[] a, int[] b, int wanted) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while ((i < a.length || j < b.length) && count < wanted) {
+            int next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            merged[count++] = next;
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    // drops removed docs and renumbers the rest densely, keeping their order
+    private void compact() {
+        int[] remap = new int[nextDoc];
+        Entry[] packed = new Entry[Math.max(1024, live * 2)];
+        long[] packedSerials = new long[packed.length];
+        int count = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (docs[doc] != null) {
+                remap[doc] = count;
+                packed[count] = docs[doc];
+                packedSerials[count] = serials[doc];
+                docIds.put(docs[doc].book, count);
+                count++;
+            } else {
+                remap[doc] = -1;
+            }
+        }
+        for (GramTable table : postings) {
+            table.remap(remap);
+        }
+        docs = packed;
+        serials = packedSerials;
+        nextDoc = count;
+    }
+
+    // open addressing map from packed trigram to its posting list
+    private static final class GramTable {
+        private long[] keys = new long[1024];
+        private Postings[] values = new Postings[1024];
+        private int size;
+
+        Postings get(long key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        Postings getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            Postings created = new Postings();
+            keys[i] = key;
+            values[i] = created;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            return created;
+        }
+
+        // drops removed docs from every list; lists left empty stay, they are harmless and reused
+        void remap(int[] remap) {
+            for (Postings list : values) {
+                if (list != null) {
+                    list.remap(remap);
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[capacity];
+            values = new Postings[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = mix(oldKeys[j]) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int doc) {
+            // a doc can hit the same trigram more than once, ids only ever grow
+            if (size > 0 && ids[size - 1] == doc) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = doc;
+        }
+
+        // first index at or after from whose id is >= doc, galloping then binary search
+        int seek(int from, int doc) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && ids[high] < doc) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high + 1, size);
+            int found = Arrays.binarySearch(ids, low, high, doc);
+            return found >= 0 ? found : -found - 1;
+        }
+
+        int remap(int[] remap) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[ids[i]];
+                if (doc >= 0) {
+                    ids[count++] = doc;
+                }
+            }
+            size = count;
+            return size;
+        }
+    }
+
+    private static final class Entry {
+        private final Book book;
+        private final String lowerTitle;
+        private final String lowerAuthor;
+
+        Entry(Book book, boolean cacheFields) {
+            this.book = book;
+            this.lowerTitle = cacheFields ? book.getTitle().toLowerCase() : null;
+            this.lowerAuthor = cacheFields ? book.getAuthor().toLowerCase() : null;
+        }
+
+        String lowerTitle() {
+            return lowerTitle != null ? lowerTitle : book.getTitle().toLowerCase();
+        }
+
+        String lowerAuthor() {
+            return lowerAuthor != null ? lowerAuthor : book.getAuthor().toLowerCase();
+        }
+
+        boolean matches(String query, String lowerQuery) {
+            return lowerTitle.contains(lowerQuery) ||
+                    lowerAuthor.contains(lowerQuery) ||
+                    book.getISBN().contains(query);
+        }
+    }
+}
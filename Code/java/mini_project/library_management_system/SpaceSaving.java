@@ -0,0 +1,197 @@
+package mini_project.library_management_system;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters over a fixed number of counters, kept as a stream summary:
+ * buckets of equal counts in a list sorted by count, so an increment only moves its key
+ * to the neighbouring bucket and the top k are read off the high end in O(k).
+ *
+ * A new key that finds every counter taken replaces a key of the lowest count and
+ * inherits that count as its error. Any key seen more than total / capacity times is
+ * guaranteed to be tracked. Not thread-safe, {@link PopularityTracker} serializes access.
+ */
+class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    // lowest and highest count bucket
+    private Bucket min;
+    private Bucket max;
+
+    SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.counters = new HashMap<>(this.capacity * 2);
+    }
+
+    int size() {
+        return counters.size();
+    }
+
+    void offer(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            increment(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter(key, 0);
+            counters.put(key, counter);
+            if (min != null && min.count == 1) {
+                min.attach(counter);
+            } else {
+                Bucket bucket = new Bucket(1);
+                insertAfter(null, bucket);
+                bucket.attach(counter);
+            }
+            return;
+        }
+        // reuse the victim's counter, it keeps its count and takes the new key
+        counter = min.head;
+        counters.remove(counter.key);
+        counter.key = key;
+        counter.error = counter.bucket.count;
+        counters.put(key, counter);
+        increment(counter);
+    }
+
+    // highest counts first
+    List<PopularityTracker.Entry> top(int k) {
+        List<PopularityTracker.Entry> result = new ArrayList<>(Math.min(k, counters.size()));
+        for (Bucket bucket = max; bucket != null && result.size() < k; bucket = bucket.prev) {
+            for (Counter counter = bucket.head; counter != null && result.size() < k; counter = counter.next) {
+                result.add(new PopularityTracker.Entry(counter.key, bucket.count, counter.error));
+            }
+        }
+        return result;
+    }
+
+    long count(String key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.bucket.count : 0;
+    }
+
+    /** Divides every count by 2^shift and drops the keys that fall to zero. */
+    void decay(int shift) {
+        List<Counter> all = new ArrayList<>(counters.size());
+        for (Bucket bucket = min; bucket != null; bucket = bucket.next) {
+            for (Counter counter = bucket.head; counter != null; counter = counter.next) {
+                all.add(counter);
+            }
+        }
+        min = null;
+        max = null;
+        // walking up from the lowest bucket keeps the decayed counts sorted, so the rebuild appends
+        for (Counter counter : all) {
+            long count = counter.bucket.count >>> shift;
+            counter.bucket = null;
+            counter.prev = null;
+            counter.next = null;
+            if (count == 0) {
+                counters.remove(counter.key);
+                continue;
+            }
+            counter.error >>>= shift;
+            if (max == null || max.count != count) {
+                insertAfter(max, new Bucket(count));
+            }
+            max.attach(counter);
+        }
+    }
+
+    private void increment(Counter counter) {
+        Bucket from = counter.bucket;
+        long count = from.count + 1;
+        Bucket to = from.next;
+        if (to == null || to.count != count) {
+            if (from.head == counter && counter.next == null) {
+                // alone in its bucket and the next count is free, bump the bucket in place
+                from.count = count;
+                return;
+            }
+            to = new Bucket(count);
+            insertAfter(from, to);
+        }
+        from.detach(counter);
+        if (from.head == null) {
+            unlink(from);
+        }
+        to.attach(counter);
+    }
+
+    // null inserts at the low end
+    private void insertAfter(Bucket after, Bucket bucket) {
+        bucket.prev = after;
+        bucket.next = after != null ? after.next : min;
+        if (bucket.next != null) {
+            bucket.next.prev = bucket;
+        } else {
+            max = bucket;
+        }
+        if (after != null) {
+            after.next = bucket;
+        } else {
+            min = bucket;
+        }
+    }
+
+    private void unlink(Bucket bucket) {
+        if (bucket.prev != null) {
+            bucket.prev.next = bucket.next;
+        } else {
+            min = bucket.next;
+        }
+        if (bucket.next != null) {
+            bucket.next.prev = bucket.prev;
+        } else {
+            max = bucket.prev;
+        }
+    }
+
+    private static final class Bucket {
+        private long count;
+        private Counter head;
+        private Bucket prev;
+        private Bucket next;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+
+        void attach(Counter counter) {
+            counter.bucket = this;
+            counter.prev = null;
+            counter.next = head;
+            if (head != null) {
+                head.prev = counter;
+            }
+            head = counter;
+        }
+
+        void detach(Counter counter) {
+            if (counter.prev != null) {
+                counter.prev.next = counter.next;
+            } else {
+                head = counter.next;
+            }
+            if (counter.next != null) {
+                counter.next.prev = counter.prev;
+            }
+        }
+    }
+
+    private static final class Counter {
+        private String key;
+        private long error;
+        private Bucket bucket;
+        private Counter prev;
+        private Counter next;
+
+        Counter(String key, long error) {
+            this.key = key;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package mini_project.library_management_system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Trie of the lowercase words found in titles and authors, each with the number of
+ * books it appears in. Backs {@link Library#autocomplete(String, int)} and the term
+ * expansion of {@link Library#fuzzySearch(String, int)}.
+ *
+ * Nodes live in parallel int arrays (first child / next sibling), so the whole trie is a
+ * handful of arrays rather than one object per node. Every node also keeps the highest
+ * count below it, which lets top-k completion visit nodes best-first and stop after k
+ * terms instead of walking the whole subtree. Nodes of words whose count drops to zero
+ * stay in place and are reused if the word comes back. Not thread safe.
+ *
+ * Words shorter than a trigram also keep the books they appear in, since the trigram
+ * index cannot find books by them.
+ */
+class TermTrie {
+    private static final int ROOT = 0;
+
+    private char[] label;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] parent;
+    private int[] count;
+    private int[] best;
+    private int nodes;
+    // books of every word the trigram index cannot narrow by, in the order they were added
+    private final Map<String, Set<Book>> shortTermBooks;
+
+    TermTrie() {
+        int capacity = 1024;
+        this.label = new char[capacity];
+        this.firstChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.parent = new int[capacity];
+        this.count = new int[capacity];
+        this.best = new int[capacity];
+        this.nodes = 1;
+        this.shortTermBooks = new HashMap<>();
+        this.firstChild[ROOT] = -1;
+        this.nextSibling[ROOT] = -1;
+        this.parent[ROOT] = -1;
+    }
+
+    // lowercase words of the text, each once
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        String lower = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String term = lower.substring(start, i);
+                if (!terms.contains(term)) {
+                    terms.add(term);
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    void add(String term, Book book) {
+        add(term);
+        if (term.length() < SearchIndex.GRAM) {
+            shortTermBooks.computeIfAbsent(term, key -> new LinkedHashSet<>()).add(book);
+        }
+    }
+
+    void remove(String term, Book book) {
+        remove(term);
+        Set<Book> books = shortTermBooks.get(term);
+        if (books != null && books.remove(book) && books.isEmpty()) {
+            shortTermBooks.remove(term);
+        }
+    }
+
+    /** Books containing a word shorter than a trigram; read-only, empty for longer words. */
+    Set<Book> books(String shortTerm) {
+        Set<Book> books = shortTermBooks.get(shortTerm);
+        return books == null ? Collections.emptySet() : Collections.unmodifiableSet(books);
+    }
+
+    private void add(String term) {
+        int node = ROOT;
+        for (int i = 0; i < term.length(); i++) {
+            node = child(node, term.charAt(i), true);
+        }
+        int value = ++count[node];
+        // raise the subtree maximum on the way up until it no longer changes
+        for (int n = node; n >= 0 && best[n] < value; n = parent[n]) {
+            best[n] = value;
+        }
+    }
+
+    private void remove(String term) {
+        int node = find(term);
+        if (node < 0 || count[node] == 0) {
+            return;
+        }
+        count[node]--;
+        for (int n = node; n >= 0; n = parent[n]) {
+            int value = count[n];
+            for (int c = firstChild[n]; c >= 0; c = nextSibling[c]) {
+                value = Math.max(value, best[c]);
+            }
+            if (value == best[n]) {
+                break;
+            }
+            best[n] = value;
+        }
+    }
+
+    int count(String term) {
+        int node = find(term);
+        return node < 0 ? 0 : count[node];
+    }
+
+    /** Up to k words starting with prefix, most frequent first. */
+    List<String> complete(String prefix, int k) {
+        List<String> result = new ArrayList<>();
+        int start = find(prefix);
+        if (start < 0 || k <= 0 || best[start] == 0) {
+            return result;
+        }
+        // a positive id is a subtree bounded by best[], a negative one (~id) the word ending at that node
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(b[0], a[0]));
+        queue.add(new long[] {best[start], start});
+        while (!queue.isEmpty() && result.size() < k) {
+            long[] top = queue.poll();
+            int id = (int) top[1];
+            if (id < 0) {
+                result.add(word(~id));
+                continue;
+            }
+            if (count[id] > 0) {
+                queue.add(new long[] {count[id], ~id});
+            }
+            for (int c = firstChild[id]; c >= 0; c = nextSibling[c]) {
+                if (best[c] > 0) {
+                    queue.add(new long[] {best[c], c});
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Every word within {@code maxEdits} insertions, deletions or substitutions of
+     * {@code term}, mapped to its edit distance. Walks the trie with one Levenshtein row
+     * per node and abandons a branch as soon as every cell of its row exceeds the limit.
+     */
+    Map<String, Integer> similar(String term, int maxEdits) {
+        Map<String, Integer> result = new HashMap<>();
+        int[] row = new int[term.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        StringBuilder path = new StringBuilder();
+        for (int c = firstChild[ROOT]; c >= 0; c = nextSibling[c]) {
+            similar(c, term, row, maxEdits, path, result);
+        }
+        return result;
+    }
+
+    private void similar(int node, String term, int[] previous, int maxEdits, StringBuilder path, Map<String, Integer> result) {
+        if (best[node] == 0) {
+            return;
+        }
+        char ch = label[node];
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+        int min = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int substitute = previous[i - 1] + (term.charAt(i - 1) == ch ? 0 : 1);
+            row[i] = Math.min(substitute, Math.min(previous[i] + 1, row[i - 1] + 1));
+            min = Math.min(min, row[i]);
+        }
+        if (min > maxEdits) {
+            return;
+        }
+        path.append(ch);
+        if (count[node] > 0 && row[row.length - 1] <= maxEdits) {
+            result.put(path.toString(), row[row.length - 1]);
+        }
+        for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+            similar(c, term, row, maxEdits, path, result);
+        }
+        path.setLength(path.length() - 1);
+    }
+
+    private int find(String term) {
+        int node = ROOT;
+        for (int i = 0; i < term.length() && node >= 0; i++) {
+            node = child(node, term.charAt(i), false);
+        }
+        return node;
+    }
+
+    private int child(int node, char ch, boolean create) {
+        for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+            if (label[c] == ch) {
+                return c;
+            }
+        }
+        if (!create) {
+            return -1;
+        }
+        if (nodes == label.length) {
+            int capacity = nodes * 2;
+            label = Arrays.copyOf(label, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            count = Arrays.copyOf(count, capacity);
+            best = Arrays.copyOf(best, capacity);
+        }
+        int created = nodes++;
+        label[created] = ch;
+        firstChild[created] = -1;
+        nextSibling[created] = firstChild[node];
+        parent[created] = node;
+        firstChild[node] = created;
+        return created;
+    }
+
+    private String word(int node) {
+        StringBuilder word = new StringBuilder();
+        for (int n = node; n != ROOT; n = parent[n]) {
+            word.append(label[n]);
+        }
+        return word.reverse().toString();
+    }
+}
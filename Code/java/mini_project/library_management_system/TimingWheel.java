@@ -0,0 +1,152 @@
+package mini_project.library_management_system;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel over {@link Loan}s, used by {@link LoanLedger} to find loans
+ * as they become overdue.
+ *
+ * Level k has 64 buckets of 64^k ticks each. A loan is filed in the lowest level whose
+ * span covers its deadline and moves one level down each time the wheel reaches its
+ * bucket, so it is touched at most once per level: scheduling, cancelling and expiring
+ * are O(1) and nothing is ever scanned. Buckets are intrusive doubly linked lists
+ * through the loans themselves. Not thread safe, the ledger locks each wheel.
+ *
+ * Each level keeps a bit per non-empty bucket, so advancing jumps straight to the next
+ * tick that drains something instead of stepping through the idle ticks in between.
+ */
+class TimingWheel {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    // 64^6 ticks, with one second ticks that is over two thousand years
+    private static final int LEVELS = 6;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final long tickMillis;
+    private final Loan[][] buckets;
+    // bit b of occupied[level] is set while buckets[level][b] holds a loan
+    private final long[] occupied;
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new Loan[LEVELS][SLOTS];
+        this.occupied = new long[LEVELS];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Files the loan, or returns false when it is already past due and should be expired now. */
+    boolean schedule(Loan loan) {
+        // first tick that starts strictly after the due time
+        long deadline = loan.getDueMillis() / tickMillis + 1;
+        long delta = deadline - currentTick;
+        if (delta <= 0) {
+            return false;
+        }
+        if (delta >= SPAN) {
+            // revisited when its top level bucket comes round, then filed again
+            deadline = currentTick + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        int bucket = (int) (deadline >>> (BITS * level)) & (SLOTS - 1);
+        Loan head = buckets[level][bucket];
+        loan.prev = null;
+        loan.next = head;
+        if (head != null) {
+            head.prev = loan;
+        }
+        buckets[level][bucket] = loan;
+        occupied[level] |= 1L << bucket;
+        loan.level = level;
+        loan.bucket = bucket;
+        size++;
+        return true;
+    }
+
+    /** Removes a scheduled loan, false if it was not in the wheel. */
+    boolean cancel(Loan loan) {
+        if (loan.level < 0) {
+            return false;
+        }
+        if (loan.prev != null) {
+            loan.prev.next = loan.next;
+        } else {
+            buckets[loan.level][loan.bucket] = loan.next;
+            if (loan.next == null) {
+                occupied[loan.level] &= ~(1L << loan.bucket);
+            }
+        }
+        if (loan.next != null) {
+            loan.next.prev = loan.prev;
+        }
+        loan.prev = null;
+        loan.next = null;
+        loan.level = -1;
+        size--;
+        return true;
+    }
+
+    /** Moves the wheel up to the given time and hands every loan that fell due to {@code expired}. */
+    void advance(long nowMillis, Consumer<Loan> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            long tick = nextEvent();
+            if (tick > target) {
+                currentTick = target;
+                return;
+            }
+            currentTick = tick;
+            // cascade every level whose bucket boundary this tick crosses, highest first
+            int top = 0;
+            while (top + 1 < LEVELS && (tick & ((1L << (BITS * (top + 1))) - 1)) == 0) {
+                top++;
+            }
+            for (int level = top; level >= 1; level--) {
+                drain(level, (int) (tick >>> (BITS * level)) & (SLOTS - 1), expired);
+            }
+            drain(0, (int) tick & (SLOTS - 1), expired);
+        }
+    }
+
+    // first tick after the current one that drains a non-empty bucket, Long.MAX_VALUE if the wheel is empty
+    private long nextEvent() {
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] == 0) {
+                continue;
+            }
+            int shift = BITS * level;
+            // level k drains bucket (t >> 6k) & 63 at every tick t that is a multiple of 64^k
+            long boundary = (currentTick >>> shift) + 1;
+            int skip = Long.numberOfTrailingZeros(Long.rotateRight(occupied[level], (int) boundary & (SLOTS - 1)));
+            next = Math.min(next, (boundary + skip) << shift);
+        }
+        return next;
+    }
+
+    private void drain(int level, int bucket, Consumer<Loan> expired) {
+        Loan loan = buckets[level][bucket];
+        buckets[level][bucket] = null;
+        occupied[level] &= ~(1L << bucket);
+        while (loan != null) {
+            Loan next = loan.next;
+            loan.prev = null;
+            loan.next = null;
+            loan.level = -1;
+            size--;
+            if (!schedule(loan)) {
+                expired.accept(loan);
+            }
+            loan = next;
+        }
+    }
+}
@@ -2,16 +2,18 @@ package mini_project.library_management_system;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class User {
     private String name;
     private String id;
-    private List<Book> borrowedBooks;
+    private Set<Book> borrowedBooks;
 
     public User(String name, String id) {
         this.name = name;
         this.id = id;
-        this.borrowedBooks = new ArrayList<>();
+        this.borrowedBooks = ConcurrentHashMap.newKeySet();
     }
 
     public String getName() {
@@ -26,24 +28,61 @@ public class User {
         return new ArrayList<>(borrowedBooks); // Return a copy to preserve encapsulation
     }
 
-    public void borrowBook(Book book) {
-        if (book.isAvailable()) {
-            book.borrow();
-            borrowedBooks.add(book);
-            System.out.println(name + " has borrowed: " + book.getTitle());
+    // thread safe and silent, the book's CAS decides which borrower wins; the library calls it under the book's monitor
+    BorrowResult tryBorrow(Book book) {
+        if (!book.tryBorrow()) {
+            return BorrowResult.NOT_AVAILABLE;
+        }
+        borrowedBooks.add(book);
+        return BorrowResult.SUCCESS;
+    }
+
+    BorrowResult tryReturn(Book book) {
+        if (!borrowedBooks.remove(book)) {
+            return BorrowResult.NOT_BORROWED;
+        }
+        book.tryReturn();
+        return BorrowResult.SUCCESS;
+    }
+
+    // the library hands a returned book straight to the next holder, the book never becomes available in between
+    boolean release(Book book) {
+        return borrowedBooks.remove(book);
+    }
+
+    void receive(Book book) {
+        borrowedBooks.add(book);
+    }
+
+    boolean hasBorrowed(Book book) {
+        return borrowedBooks.contains(book);
+    }
+
+    /**
+     * Borrows through the library that catalogues the book, so holds, the loan ledger
+     * and its listeners see the loan; a book outside any library is just flagged.
+     */
+    public BorrowResult borrowBook(Book book) {
+        Library library = book.getLibrary();
+        BorrowResult result = library != null ? library.borrowBook(this, book) : tryBorrow(book);
+        if (result.isSuccess()) {
+            book.message(name + " has borrowed: " + book.getTitle());
         } else {
-            System.out.println("Sorry, " + book.getTitle() + " is not available for borrowing.");
+            book.message("Sorry, " + book.getTitle() + " is not available for borrowing.");
         }
+        return result;
     }
 
-    public void returnBook(Book book) {
-        if (borrowedBooks.contains(book)) {
-            book.returnBook();
-            borrowedBooks.remove(book);
-            System.out.println(name + " has returned: " + book.getTitle());
+    /** Returns through the book's library, which hands it to the next holder in line. */
+    public BorrowResult returnBook(Book book) {
+        Library library = book.getLibrary();
+        BorrowResult result = library != null ? library.returnBook(this, book) : tryReturn(book);
+        if (result.isSuccess()) {
+            book.message(name + " has returned: " + book.getTitle());
         } else {
-            System.out.println(name + " did not borrow: " + book.getTitle());
+            book.message(name + " did not borrow: " + book.getTitle());
         }
+        return result;
     }
 
     
@@ -0,0 +1,302 @@
+package mini_project.task_management_system;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A task manager for many threads at once. The whole state is one immutable
+ * {@link Snapshot} (a persistent {@link TaskTrie} per partition) behind an atomic
+ * reference, so {@link #snapshot()} is a single volatile read and the snapshot stays
+ * consistent however long the reader keeps it.
+ *
+ * Writers never lock. Each one builds the next snapshot by copying only the trie path
+ * of the task it changes and publishes it with a compare-and-set, retrying when another
+ * writer got in first. Readers never wait for writers and never make them retry.
+ *
+ * Tasks are listed in id order, which is the order they were created, not the order
+ * they were added or completed as in {@link TaskManager}. Whether a task is completed
+ * is part of the snapshot; its title and description are read from the live task.
+ * Any thread may complete or reopen any task, but adding and removing one particular
+ * task should be left to one thread at a time, as it also moves the task's owner.
+ */
+public class ConcurrentTaskManager extends TaskOwner {
+    private final AtomicReference<Snapshot> state;
+
+    public ConcurrentTaskManager() {
+        this.state = new AtomicReference<>(new Snapshot(TaskTrie.EMPTY, TaskTrie.EMPTY, 0));
+    }
+
+    /** The current state, consistent and immutable. O(1). */
+    public Snapshot snapshot() {
+        return state.get();
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (task.getManager() != null && task.getManager() != this) {
+            throw new IllegalArgumentException("Task #" + task.getId() + " already belongs to another manager");
+        }
+        // attached first, so a completion racing with the add is not lost
+        task.setManager(this);
+        while (true) {
+            Snapshot current = state.get();
+            if (current.getTask(task.getId()) != null) {
+                return;
+            }
+            // read inside the loop, a retry picks up a completion that happened meanwhile
+            boolean completed = task.isCompleted();
+            Snapshot next = completed
+                    ? current.next(current.pending, current.completed.with(task))
+                    : current.next(current.pending.with(task), current.completed);
+            if (state.compareAndSet(current, next)) {
+                // a flip between the read and the CAS found the task in neither partition and
+                // did nothing, so it is moved here
+                if (task.isCompleted() != completed) {
+                    completionChanged(task);
+                }
+                return;
+            }
+        }
+    }
+
+    public Task getTask(long id) {
+        return state.get().getTask(id);
+    }
+
+    public void removeTask(Task task) {
+        remove(task);
+    }
+
+    /** @return the removed task, or null if there is no task with this id */
+    public Task removeTask(long id) {
+        while (true) {
+            Task task = state.get().getTask(id);
+            if (task == null) {
+                return null;
+            }
+            if (remove(task)) {
+                return task;
+            }
+        }
+    }
+
+    // false if the task was not there, or another thread removed it first
+    private boolean remove(Task task) {
+        long id = task.getId();
+        Snapshot current;
+        do {
+            current = state.get();
+            if (current.getTask(id) != task) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, current.next(current.pending.without(id), current.completed.without(id))));
+        task.setManager(null);
+        return true;
+    }
+
+    public void markTaskAsCompleted(Task task) {
+        task.setCompleted(true);
+    }
+
+    /** @return false if there is no task with this id */
+    public boolean markTaskAsCompleted(long id) {
+        Task task = state.get().getTask(id);
+        if (task == null) {
+            return false;
+        }
+        markTaskAsCompleted(task);
+        return true;
+    }
+
+    /**
+     * Moves the task to the partition its flag says. The flag is checked again after
+     * publishing: if another thread flipped it meanwhile, that thread's own call may
+     * have seen the old partition, so the move is repeated until both agree.
+     */
+    @Override
+    void completionChanged(Task task) {
+        long id = task.getId();
+        while (true) {
+            Snapshot current = state.get();
+            boolean completed = task.isCompleted();
+            TaskTrie from = completed ? current.pending : current.completed;
+            if (from.get(id) != task) {
+                // already where it belongs, or removed
+                if (task.isCompleted() == completed) {
+                    return;
+                }
+                continue;
+            }
+            Snapshot next = completed
+                    ? current.next(current.pending.without(id), current.completed.with(task))
+                    : current.next(current.pending.with(task), current.completed.without(id));
+            if (state.compareAndSet(current, next) && task.isCompleted() == completed) {
+                return;
+            }
+        }
+    }
+
+    // titles and descriptions are read from the live task, nothing to publish
+    @Override
+    void taskUpdated(Task task) {
+    }
+
+    public int size() {
+        return state.get().size();
+    }
+
+    public int countPending() {
+        return state.get().countPending();
+    }
+
+    public int countCompleted() {
+        return state.get().countCompleted();
+    }
+
+    /** All tasks of the current snapshot; later changes do not show up in it. */
+    public Collection<Task> allTasks() {
+        return state.get().allTasks();
+    }
+
+    public Collection<Task> pendingTasks() {
+        return state.get().pendingTasks();
+    }
+
+    public Collection<Task> completedTasks() {
+        return state.get().completedTasks();
+    }
+
+    public List<Task> getAllTasks() {
+        return new ArrayList<>(allTasks());
+    }
+
+    public List<Task> getCompletedTasks() {
+        return new ArrayList<>(completedTasks());
+    }
+
+    public List<Task> getPendingTasks() {
+        return new ArrayList<>(pendingTasks());
+    }
+
+    /**
+     * One version of a {@link ConcurrentTaskManager}. Every method answers from that
+     * version, so counts and listings always agree with each other; the collections it
+     * returns are read-only.
+     */
+    public static final class Snapshot {
+        private final TaskTrie pending;
+        private final TaskTrie completed;
+        private final long version;
+
+        Snapshot(TaskTrie pending, TaskTrie completed, long version) {
+            this.pending = pending;
+            this.completed = completed;
+            this.version = version;
+        }
+
+        private Snapshot next(TaskTrie pending, TaskTrie completed) {
+            return new Snapshot(pending, completed, version + 1);
+        }
+
+        /** Goes up by one with every change to the manager. */
+        public long getVersion() {
+            return version;
+        }
+
+        public Task getTask(long id) {
+            Task task = pending.get(id);
+            return task != null ? task : completed.get(id);
+        }
+
+        /** Whether the task was completed in this version, whatever its flag says now. */
+        public boolean isCompleted(Task task) {
+            return completed.get(task.getId()) == task;
+        }
+
+        public int size() {
+            return pending.size() + completed.size();
+        }
+
+        public int countPending() {
+            return pending.size();
+        }
+
+        public int countCompleted() {
+            return completed.size();
+        }
+
+        public Collection<Task> pendingTasks() {
+            return pending;
+        }
+
+        public Collection<Task> completedTasks() {
+            return completed;
+        }
+
+        /** Both partitions merged back into id order. */
+        public Collection<Task> allTasks() {
+            return new AbstractCollection<>() {
+                @Override
+                public Iterator<Task> iterator() {
+                    return new Merge(pending.iterator(), completed.iterator());
+                }
+
+                @Override
+                public int size() {
+                    return Snapshot.this.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return pending.contains(o) || completed.contains(o);
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{version=" + version + ", pending=" + pending.size() + ", completed=" + completed.size() + "}";
+        }
+    }
+
+    // merges two iterators that are each in ascending id order
+    private static final class Merge implements Iterator<Task> {
+        private final Iterator<Task> left;
+        private final Iterator<Task> right;
+        private Task leftNext;
+        private Task rightNext;
+
+        Merge(Iterator<Task> left, Iterator<Task> right) {
+            this.left = left;
+            this.right = right;
+            this.leftNext = left.hasNext() ? left.next() : null;
+            this.rightNext = right.hasNext() ? right.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leftNext != null || rightNext != null;
+        }
+
+        @Override
+        public Task next() {
+            Task task;
+            if (leftNext == null && rightNext == null) {
+                throw new NoSuchElementException();
+            }
+            if (rightNext == null || (leftNext != null && leftNext.getId() < rightNext.getId())) {
+                task = leftNext;
+                leftNext = left.hasNext() ? left.next() : null;
+            } else {
+                task = rightNext;
+                rightNext = right.hasNext() ? right.next() : null;
+            }
+            return task;
+        }
+    }
+}
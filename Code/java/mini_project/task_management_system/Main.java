@@ -1,13 +1,22 @@
 package mini_project.task_management_system;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Scanner;
-import java.util.List;
+import java.util.Collection;
 
 public class Main {
     private static TaskManager taskManager = new TaskManager();
     private static Scanner scanner = new Scanner(System.in);
 
-    public static void main(String[] args) {
+    // pass a directory to keep the tasks there between runs
+    public static void main(String[] args) throws IOException {
+        TaskStore store = null;
+        if (args.length > 0) {
+            store = TaskStore.open(Paths.get(args[0]));
+            taskManager = store.getManager();
+            System.out.println("Loaded " + taskManager.size() + " tasks from " + args[0]);
+        }
         boolean running = true;
         while (running) {
             printMenu();
@@ -41,6 +50,9 @@ public class Main {
                     System.out.println("Invalid choice. Please try again.");
             }
         }
+        if (store != null) {
+            store.close();
+        }
 
     }
 
@@ -67,61 +79,58 @@ public class Main {
     }
 
     private static void markTaskAsCompleted() {
-        List<Task> pendingTasks = taskManager.getPendingTasks();
+        Collection<Task> pendingTasks = taskManager.pendingTasks();
         if (pendingTasks.isEmpty()) {
             System.out.println("No pending tasks to mark as completed.");
             return;
         }
 
         System.out.println("Pending tasks:");
-        for (int i = 0; i < pendingTasks.size(); i++) {
-            System.out.println((i + 1) + ". " + pendingTasks.get(i).getTitle());
+        for (Task task : pendingTasks) {
+            System.out.println(task.getId() + ". " + task.getTitle());
         }
 
-        System.out.print("Enter the number of the task to mark as completed: ");
-        int taskNumber = scanner.nextInt();
+        // tasks are picked by id, so the choice stays valid even if the list changed in the meantime
+        System.out.print("Enter the id of the task to mark as completed: ");
+        long taskId = scanner.nextLong();
         scanner.nextLine();
 
-        if (taskNumber > 0 && taskNumber <= pendingTasks.size()) {
-            Task task = pendingTasks.get(taskNumber -1);
-            taskManager.markTaskAsCompleted(task);
+        if (taskManager.markTaskAsCompleted(taskId)) {
             System.out.println("Task marked as completed!");
         } else {
-            System.out.println("Invalid task number.");
+            System.out.println("Invalid task id.");
         }
     }
 
     private static void removeTask() {
-        List<Task> allTasks = taskManager.getAllTasks();
+        Collection<Task> allTasks = taskManager.allTasks();
         if (allTasks.isEmpty()) {
             System.out.println("No tasks to remove.");
             return;
         }
 
         System.out.println("All tasks:");
-        for (int i = 0; i < allTasks.size(); i++) {
-            System.out.println((i + 1) + ". " + allTasks.get(i).getTitle());
+        for (Task task : allTasks) {
+            System.out.println(task.getId() + ". " + task.getTitle());
         }
 
-        System.out.print("Enter the number of the task to remove: ");
-        int taskNumber = scanner.nextInt();
+        System.out.print("Enter the id of the task to remove: ");
+        long taskId = scanner.nextLong();
         scanner.nextLine();
 
-        if (taskNumber > 0 && taskNumber <= allTasks.size()) {
-            Task task = allTasks.get(taskNumber - 1);
-            taskManager.removeTask(task);
+        if (taskManager.removeTask(taskId) != null) {
             System.out.println("Task removed successfully!");
         } else {
-            System.out.println("Invalid task number.");
+            System.out.println("Invalid task id.");
         }
     }
 
     private static void viewAllTasks() {
-        List<Task> allTasks = taskManager.getAllTasks();
+        Collection<Task> allTasks = taskManager.allTasks();
         if (allTasks.isEmpty()) {
             System.out.println("No tasks found.");
         } else {
-            System.out.println("All tasks:");
+            System.out.println("All tasks (" + taskManager.size() + "):");
             for (Task task : allTasks) {
                 System.out.println(task);
             }
@@ -129,11 +138,11 @@ public class Main {
     }
 
     private static void viewCompletedTasks() {
-        List<Task> completedTasks  = taskManager.getCompletedTasks();
+        Collection<Task> completedTasks = taskManager.completedTasks();
         if (completedTasks.isEmpty()) {
             System.out.println("No completed tasks found.");
         } else {
-            System.out.println("Completed tasks:");
+            System.out.println("Completed tasks (" + taskManager.countCompleted() + "):");
             for (Task task : completedTasks) {
                 System.out.println(task);
             }
@@ -141,11 +150,11 @@ public class Main {
     }
 
     private static void viewPendingTasks() {
-        List<Task> pendingTasks = taskManager.getPendingTasks();
+        Collection<Task> pendingTasks = taskManager.pendingTasks();
         if (pendingTasks.isEmpty()) {
             System.out.println("No pending tasks found.");
         } else {
-            System.out.println("Pending tasks:");
+            System.out.println("Pending tasks (" + taskManager.countPending() + "):");
             for (Task task : pendingTasks) {
                 System.out.println(task);
             }
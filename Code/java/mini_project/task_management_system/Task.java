@@ -1,17 +1,68 @@
 package mini_project.task_management_system;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Task {
+    /** Deadline of a task that has none. */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    // ids are handed out in creation order and never reused
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    private final long id;
     private String title;
     private String description;
-    private boolean isCompleted;
+    // volatile for ConcurrentTaskManager, which reads it without a lock
+    private volatile boolean isCompleted;
+    // what a TaskScheduler runs for this task, null for a plain to-do item
+    private final Runnable work;
+    private final int priority;
+    private final long deadlineMillis;
+    // the manager holding this task, told when the task is completed, reopened or edited;
+    // volatile for ConcurrentTaskManager.addTask, which writes it and then reads isCompleted
+    // while setCompleted writes isCompleted and then reads this, so one of them sees the other
+    private volatile TaskOwner manager;
 
     public Task (String title, String description) {
+        this(title, description, null, 0, NO_DEADLINE);
+    }
+
+    public Task (String title, String description, Runnable work) {
+        this(title, description, work, 0, NO_DEADLINE);
+    }
+
+    /**
+     * @param work           run by a {@link TaskScheduler}, which completes the task when it returns normally
+     * @param priority       higher runs first
+     * @param deadlineMillis wall clock time the task should have started by, or {@link #NO_DEADLINE}
+     */
+    public Task (String title, String description, Runnable work, int priority, long deadlineMillis) {
+        this.id = NEXT_ID.getAndIncrement();
         this.title = title;
         this.description = description;
         this.isCompleted = false;
+        this.work = work;
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    // recreates a stored task under its original id, tasks created later are numbered past it
+    Task(long id, String title, String description, boolean completed, int priority, long deadlineMillis) {
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.isCompleted = completed;
+        this.work = null;
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
     }
 
     // getters
+    public long getId() {
+        return id;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -24,22 +75,56 @@ public class Task {
         return isCompleted;
     }
 
+    public Runnable getWork() {
+        return work;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
     // setters
     public void setTitle(String title) {
         this.title = title;
+        TaskOwner owner = manager;
+        if (owner != null) {
+            owner.taskUpdated(this);
+        }
     }
 
     public void setDescription(String description) {
         this.description = description;
+        TaskOwner owner = manager;
+        if (owner != null) {
+            owner.taskUpdated(this);
+        }
     }
 
     public void setCompleted(Boolean completed) {
+        boolean changed = this.isCompleted != completed;
         this.isCompleted = completed;
+        // read once, a concurrent removeTask may clear it
+        TaskOwner owner = manager;
+        if (changed && owner != null) {
+            owner.completionChanged(this);
+        }
+    }
+
+    TaskOwner getManager() {
+        return manager;
+    }
+
+    void setManager(TaskOwner manager) {
+        this.manager = manager;
     }
 
     @Override
     public String toString() {
-        return "Task: " + title + " (Completed: " + isCompleted + ")";
+        return "Task #" + id + ": " + title + " (Completed: " + isCompleted + ")";
     }
 
 }
@@ -0,0 +1,483 @@
+package mini_project.task_management_system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tasks with dependencies between them, run in parallel in dependency order.
+ *
+ * Edges are checked for cycles as they are added. The graph keeps a topological order
+ * of its tasks at all times (Pearce-Kelly), so an edge that agrees with the order is
+ * accepted in O(1); otherwise only the tasks between the two ends of the edge are
+ * searched and renumbered. Adding tasks before the tasks that depend on them, the
+ * usual way to build a workflow, never triggers a search.
+ *
+ * {@link #execute} starts every task without unfinished dependencies and starts each
+ * other task the moment its last dependency completes, so the run takes about as long
+ * as the critical path rather than the sum of all tasks. A task whose work throws, or
+ * that is cancelled, cancels everything downstream of it; so does a task the executor
+ * refuses to run.
+ */
+public class TaskGraph {
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int FAILED = 3;
+    private static final int CANCELLED = 4;
+
+    private final TaskManager manager;
+    private final Map<Long, Integer> nodeOf;
+    private Task[] tasks;
+    // ord[node] is the node's position in a topological order, every edge goes from a lower to a higher position
+    private int[] ord;
+    private int[][] successors;
+    private int[] successorCount;
+    private int[][] predecessors;
+    private int[] predecessorCount;
+    private int size;
+    // stamps nodes visited by the current cycle search, so nothing has to be cleared between searches
+    private int[] visited;
+    private int visitStamp;
+    private Execution running;
+
+    public TaskGraph() {
+        this(null);
+    }
+
+    /** Tasks added to the graph are added to {@code manager} too and completed through it. */
+    public TaskGraph(TaskManager manager) {
+        this.manager = manager;
+        this.nodeOf = new HashMap<>();
+        this.tasks = new Task[16];
+        this.ord = new int[16];
+        this.successors = new int[16][];
+        this.successorCount = new int[16];
+        this.predecessors = new int[16][];
+        this.predecessorCount = new int[16];
+        this.visited = new int[16];
+    }
+
+    public synchronized void addTask(Task task) {
+        checkIdle();
+        node(task);
+    }
+
+    /**
+     * Declares that {@code task} cannot start before {@code prerequisite} completed;
+     * both are added to the graph if needed.
+     *
+     * @throws IllegalArgumentException if the dependency would close a cycle
+     */
+    public synchronized void addDependency(Task task, Task prerequisite) {
+        checkIdle();
+        int from = node(prerequisite);
+        int to = node(task);
+        if (from == to || (ord[from] > ord[to] && !reorder(from, to))) {
+            throw new IllegalArgumentException("Task #" + task.getId() + " depending on Task #"
+                    + prerequisite.getId() + " would create a cycle");
+        }
+        successors[from] = append(successors[from], successorCount[from]++, to);
+        predecessors[to] = append(predecessors[to], predecessorCount[to]++, from);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Tasks in an order where every task comes after all of its dependencies. */
+    public synchronized List<Task> topologicalOrder() {
+        Task[] ordered = new Task[size];
+        for (int node = 0; node < size; node++) {
+            ordered[ord[node]] = tasks[node];
+        }
+        return Arrays.asList(ordered);
+    }
+
+    public Execution execute() {
+        return execute(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Starts running the graph on {@code executor}. Tasks that are already completed
+     * count as done and are not run again, so a failed run can be resumed by calling
+     * this again. The graph cannot be changed until the run has finished.
+     */
+    public synchronized Execution execute(Executor executor) {
+        checkIdle();
+        running = new Execution(executor);
+        running.start();
+        return running;
+    }
+
+    private void checkIdle() {
+        if (running != null && !running.isDone()) {
+            throw new IllegalStateException("TaskGraph is being executed");
+        }
+    }
+
+    private int node(Task task) {
+        Integer existing = nodeOf.get(task.getId());
+        if (existing != null) {
+            return existing;
+        }
+        // first, so a task the manager refuses leaves no trace in the graph
+        if (manager != null) {
+            manager.addTask(task);
+        }
+        if (size == tasks.length) {
+            int capacity = size * 2;
+            tasks = Arrays.copyOf(tasks, capacity);
+            ord = Arrays.copyOf(ord, capacity);
+            successors = Arrays.copyOf(successors, capacity);
+            successorCount = Arrays.copyOf(successorCount, capacity);
+            predecessors = Arrays.copyOf(predecessors, capacity);
+            predecessorCount = Arrays.copyOf(predecessorCount, capacity);
+            visited = Arrays.copyOf(visited, capacity);
+        }
+        int node = size++;
+        tasks[node] = task;
+        // a new task has no edges yet, so the end of the order is a valid place for it
+        ord[node] = node;
+        nodeOf.put(task.getId(), node);
+        return node;
+    }
+
+    /**
+     * Pearce-Kelly: for a new edge from -> to with ord[from] > ord[to], collects what
+     * {@code to} reaches within the affected range (failing if that includes
+     * {@code from}) and what reaches {@code from} within it, then hands their positions
+     * out again with the second group first.
+     */
+    private boolean reorder(int from, int to) {
+        int lower = ord[to];
+        int upper = ord[from];
+        visitStamp++;
+        List<Integer> forward = new ArrayList<>();
+        if (!search(to, upper, true, forward, from)) {
+            return false;
+        }
+        List<Integer> backward = new ArrayList<>();
+        search(from, lower, false, backward, -1);
+
+        forward.sort((a, b) -> Integer.compare(ord[a], ord[b]));
+        backward.sort((a, b) -> Integer.compare(ord[a], ord[b]));
+        int[] positions = new int[forward.size() + backward.size()];
+        int i = 0;
+        for (int node : backward) {
+            positions[i++] = ord[node];
+        }
+        for (int node : forward) {
+            positions[i++] = ord[node];
+        }
+        Arrays.sort(positions);
+        i = 0;
+        for (int node : backward) {
+            ord[node] = positions[i++];
+        }
+        for (int node : forward) {
+            ord[node] = positions[i++];
+        }
+        return true;
+    }
+
+    // iterative DFS along successors (forward) or predecessors, staying inside the affected range
+    private boolean search(int start, int bound, boolean forward, List<Integer> found, int target) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = start;
+        visited[start] = visitStamp;
+        while (top > 0) {
+            int node = stack[--top];
+            found.add(node);
+            int[] edges = forward ? successors[node] : predecessors[node];
+            int count = forward ? successorCount[node] : predecessorCount[node];
+            for (int e = 0; e < count; e++) {
+                int next = edges[e];
+                if (next == target) {
+                    return false;
+                }
+                boolean inRange = forward ? ord[next] < bound : ord[next] > bound;
+                if (inRange && visited[next] != visitStamp) {
+                    visited[next] = visitStamp;
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = next;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int[] append(int[] list, int count, int value) {
+        if (list == null) {
+            list = new int[2];
+        } else if (count == list.length) {
+            list = Arrays.copyOf(list, count * 2);
+        }
+        list[count] = value;
+        return list;
+    }
+
+    /** One run of the graph. */
+    public final class Execution {
+        private final Executor executor;
+        private final int nodes;
+        private final AtomicIntegerArray state;
+        // dependencies of each task that have not completed yet
+        private final AtomicIntegerArray remaining;
+        private final long[] durations;
+        private final AtomicInteger unfinished;
+        private final LongAdder completed;
+        private final LongAdder failed;
+        private final LongAdder cancelled;
+        private final CompletableFuture<GraphResult> result;
+        private long startNanos;
+
+        Execution(Executor executor) {
+            this.executor = executor;
+            this.nodes = size;
+            this.state = new AtomicIntegerArray(nodes);
+            this.remaining = new AtomicIntegerArray(nodes);
+            this.durations = new long[nodes];
+            this.unfinished = new AtomicInteger();
+            this.completed = new LongAdder();
+            this.failed = new LongAdder();
+            this.cancelled = new LongAdder();
+            this.result = new CompletableFuture<>();
+        }
+
+        private void start() {
+            startNanos = System.nanoTime();
+            int open = 0;
+            for (int node = 0; node < nodes; node++) {
+                if (tasks[node].isCompleted()) {
+                    state.set(node, DONE);
+                } else {
+                    open++;
+                }
+            }
+            for (int node = 0; node < nodes; node++) {
+                int waiting = 0;
+                for (int p = 0; p < predecessorCount[node]; p++) {
+                    if (state.get(predecessors[node][p]) != DONE) {
+                        waiting++;
+                    }
+                }
+                remaining.set(node, waiting);
+            }
+            unfinished.set(open);
+            if (open == 0) {
+                finish();
+                return;
+            }
+            for (int node = 0; node < nodes; node++) {
+                if (state.get(node) == PENDING && remaining.get(node) == 0) {
+                    dispatch(node);
+                }
+            }
+        }
+
+        private void dispatch(int node) {
+            try {
+                executor.execute(() -> run(node));
+            } catch (RejectedExecutionException e) {
+                // nothing will run it, so it and what depends on it are settled here or the run never finishes
+                if (cancelNode(node)) {
+                    cancelDownstream(node);
+                }
+            }
+        }
+
+        private void run(int node) {
+            if (!state.compareAndSet(node, PENDING, RUNNING)) {
+                return;
+            }
+            Task task = tasks[node];
+            long begin = System.nanoTime();
+            // an Error fails the task like any exception, or await() would wait for it forever
+            Throwable thrown = null;
+            try {
+                if (task.getWork() != null) {
+                    task.getWork().run();
+                }
+            } catch (Throwable e) {
+                thrown = e;
+            }
+            durations[node] = System.nanoTime() - begin;
+
+            if (thrown == null) {
+                if (manager != null) {
+                    manager.markTaskAsCompleted(task);
+                } else {
+                    task.setCompleted(true);
+                }
+                state.set(node, DONE);
+                completed.increment();
+                for (int s = 0; s < successorCount[node]; s++) {
+                    int next = successors[node][s];
+                    if (remaining.decrementAndGet(next) == 0) {
+                        dispatch(next);
+                    }
+                }
+            } else {
+                state.set(node, FAILED);
+                failed.increment();
+                cancelDownstream(node);
+            }
+            if (unfinished.decrementAndGet() == 0) {
+                finish();
+            }
+            // the graph is accounted for, the executor still gets to see the Error
+            if (thrown instanceof Error) {
+                throw (Error) thrown;
+            }
+        }
+
+        /** Cancels every task that has not started yet; running tasks finish. */
+        public void cancel() {
+            for (int node = 0; node < nodes; node++) {
+                cancelNode(node);
+            }
+        }
+
+        /** Cancels the task, if it has not started yet, and everything that depends on it. */
+        public void cancel(Task task) {
+            Integer node;
+            synchronized (TaskGraph.this) {
+                node = nodeOf.get(task.getId());
+            }
+            if (node != null && node < nodes && cancelNode(node)) {
+                cancelDownstream(node);
+            }
+        }
+
+        private boolean cancelNode(int node) {
+            if (!state.compareAndSet(node, PENDING, CANCELLED)) {
+                return false;
+            }
+            cancelled.increment();
+            if (unfinished.decrementAndGet() == 0) {
+                finish();
+            }
+            return true;
+        }
+
+        private void cancelDownstream(int node) {
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = node;
+            while (top > 0) {
+                int current = stack[--top];
+                for (int s = 0; s < successorCount[current]; s++) {
+                    int next = successors[current][s];
+                    if (cancelNode(next)) {
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, top * 2);
+                        }
+                        stack[top++] = next;
+                    }
+                }
+            }
+        }
+
+        // longest chain of measured task durations through the graph, walked in topological order
+        private void finish() {
+            long elapsed = System.nanoTime() - startNanos;
+            int[] byOrder = new int[nodes];
+            for (int node = 0; node < nodes; node++) {
+                byOrder[ord[node]] = node;
+            }
+            long[] finishedAt = new long[nodes];
+            long criticalPath = 0;
+            long busy = 0;
+            for (int node : byOrder) {
+                long ready = 0;
+                for (int p = 0; p < predecessorCount[node]; p++) {
+                    ready = Math.max(ready, finishedAt[predecessors[node][p]]);
+                }
+                finishedAt[node] = ready + durations[node];
+                criticalPath = Math.max(criticalPath, finishedAt[node]);
+                busy += durations[node];
+            }
+            result.complete(new GraphResult(completed.sum(), failed.sum(), cancelled.sum(), elapsed, criticalPath, busy));
+        }
+
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        /** Waits for the run to finish, whether tasks completed, failed or were cancelled. */
+        public GraphResult await() throws InterruptedException {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /** Outcome of one run. */
+    public static final class GraphResult {
+        private final long completed;
+        private final long failed;
+        private final long cancelled;
+        private final long elapsedNanos;
+        private final long criticalPathNanos;
+        private final long busyNanos;
+
+        GraphResult(long completed, long failed, long cancelled, long elapsedNanos, long criticalPathNanos, long busyNanos) {
+            this.completed = completed;
+            this.failed = failed;
+            this.cancelled = cancelled;
+            this.elapsedNanos = elapsedNanos;
+            this.criticalPathNanos = criticalPathNanos;
+            this.busyNanos = busyNanos;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        /** Wall clock time of the run. */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /** Longest chain of dependent task durations, the best any number of workers could do. */
+        public long getCriticalPathNanos() {
+            return criticalPathNanos;
+        }
+
+        /** Sum of all task durations, what a serial run would take. */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "GraphResult{completed=" + completed + ", failed=" + failed + ", cancelled=" + cancelled
+                    + ", elapsedMillis=" + elapsedNanos / 1_000_000 + ", criticalPathMillis=" + criticalPathNanos / 1_000_000
+                    + ", busyMillis=" + busyNanos / 1_000_000 + "}";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package mini_project.task_management_system;
+
+/**
+ * Receives every change a {@link TaskManager} makes to its tasks, in the order the
+ * changes were applied. Callbacks run on the mutating thread while it holds the
+ * manager's monitor, so they see a consistent manager and should return quickly.
+ */
+public interface TaskListener {
+    default void taskAdded(Task task) {
+    }
+
+    default void taskRemoved(Task task) {
+    }
+
+    /** The task was completed or reopened; {@link Task#isCompleted()} has the new state. */
+    default void taskCompletionChanged(Task task) {
+    }
+
+    /** The title or description of the task changed. */
+    default void taskUpdated(Task task) {
+    }
+
+    /**
+     * The call that made the changes reported above has released the manager's monitor;
+     * called on the same thread. Work that must not run under the monitor, like waiting
+     * for a write to reach the disk, belongs here.
+     */
+    default void changesApplied() {
+    }
+}
@@ -1,52 +1,200 @@
 package mini_project.task_management_system;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class TaskManager {
-    private List<Task> tasks;
+/**
+ * Keeps every task twice: once in the id index over all tasks, and once in either the
+ * pending or the completed partition. Completing a task (through the manager or
+ * {@link Task#setCompleted(Boolean)}) moves it between partitions in O(1), so counts
+ * are O(1) and listing one partition costs only the size of that partition.
+ *
+ * The views returned by {@link #allTasks()}, {@link #pendingTasks()} and
+ * {@link #completedTasks()} are live and read-only; they must not be iterated while
+ * the manager is changed, like any other collection.
+ *
+ * Every method synchronizes on the manager, so a {@link TaskScheduler} can complete
+ * tasks from its worker threads. While one is running, iterate the views inside
+ * {@code synchronized (manager)}. {@link TaskListener}s are told about every change
+ * while the monitor is still held, so they see changes in the order they happened,
+ * and get {@link TaskListener#changesApplied()} once the call has released it.
+ */
+public class TaskManager extends TaskOwner {
+    // indexed by task id, iterates in the order the tasks were added
+    private Map<Long, Task> tasks;
+    // pending tasks in the order they became pending, completed ones in the order they were completed
+    private Map<Long, Task> pending;
+    private Map<Long, Task> completed;
+    private Collection<Task> allView;
+    private Collection<Task> pendingView;
+    private Collection<Task> completedView;
+    private List<TaskListener> listeners;
 
     public TaskManager() {
-        this.tasks = new ArrayList<>();
+        this.tasks = new LinkedHashMap<>();
+        this.pending = new LinkedHashMap<>();
+        this.completed = new LinkedHashMap<>();
+        this.allView = Collections.unmodifiableCollection(tasks.values());
+        this.pendingView = Collections.unmodifiableCollection(pending.values());
+        this.completedView = Collections.unmodifiableCollection(completed.values());
+        this.listeners = new CopyOnWriteArrayList<>();
     }
 
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
     public void addTask(Task task) {
-        this.tasks.add(task);
+        synchronized (this) {
+            if (task.getManager() != null && task.getManager() != this) {
+                throw new IllegalArgumentException("Task #" + task.getId() + " already belongs to another manager");
+            }
+            if (this.tasks.putIfAbsent(task.getId(), task) != null) {
+                return;
+            }
+            task.setManager(this);
+            partitionOf(task).put(task.getId(), task);
+            for (TaskListener listener : listeners) {
+                listener.taskAdded(task);
+            }
+        }
+        settle();
+    }
+
+    public synchronized Task getTask(long id) {
+        return this.tasks.get(id);
     }
 
     public void removeTask(Task task) {
-        this.tasks.remove(task);
+        synchronized (this) {
+            if (!this.tasks.remove(task.getId(), task)) {
+                return;
+            }
+            // not partitionOf(task): a setCompleted waiting for the monitor may have flipped the flag already
+            pending.remove(task.getId());
+            completed.remove(task.getId());
+            task.setManager(null);
+            for (TaskListener listener : listeners) {
+                listener.taskRemoved(task);
+            }
+        }
+        settle();
+    }
+
+    /** @return the removed task, or null if there is no task with this id */
+    public Task removeTask(long id) {
+        Task task = getTask(id);
+        if (task != null) {
+            removeTask(task);
+        }
+        return task;
     }
 
     public void markTaskAsCompleted(Task task) {
         task.setCompleted(true);
     }
 
-    public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+    /** @return false if there is no task with this id */
+    public boolean markTaskAsCompleted(long id) {
+        Task task = getTask(id);
+        if (task == null) {
+            return false;
+        }
+        markTaskAsCompleted(task);
+        return true;
     }
 
-    public List<Task> getCompletedTasks() {
-        List<Task> completedTasks = new ArrayList<>();
-
-        for (Task task : tasks) {
+    @Override
+    void completionChanged(Task task) {
+        synchronized (this) {
+            // a task removed while its setCompleted waited for the monitor stays removed
+            if (tasks.get(task.getId()) != task) {
+                return;
+            }
             if (task.isCompleted()) {
-                completedTasks.add(task);
+                pending.remove(task.getId());
+                completed.put(task.getId(), task);
+            } else {
+                completed.remove(task.getId());
+                pending.put(task.getId(), task);
+            }
+            for (TaskListener listener : listeners) {
+                listener.taskCompletionChanged(task);
             }
         }
-
-        return completedTasks;
+        settle();
     }
 
-    public List<Task> getPendingTasks() {
-        List<Task> pendingTasks = new ArrayList<>();
-
-        for (Task task : tasks) {
-            if (!task.isCompleted()) {
-                pendingTasks.add(task);
+    @Override
+    void taskUpdated(Task task) {
+        synchronized (this) {
+            if (tasks.get(task.getId()) != task) {
+                return;
+            }
+            for (TaskListener listener : listeners) {
+                listener.taskUpdated(task);
             }
         }
+        settle();
+    }
+
+    // mutators never nest, so this runs once per change; a caller that holds the monitor itself still holds it here
+    private void settle() {
+        for (TaskListener listener : listeners) {
+            listener.changesApplied();
+        }
+    }
+
+    private Map<Long, Task> partitionOf(Task task) {
+        return task.isCompleted() ? completed : pending;
+    }
+
+    public synchronized int size() {
+        return tasks.size();
+    }
+
+    public synchronized int countPending() {
+        return pending.size();
+    }
+
+    public synchronized int countCompleted() {
+        return completed.size();
+    }
+
+    /** Live read-only view of all tasks, in the order they were added. */
+    public Collection<Task> allTasks() {
+        return allView;
+    }
+
+    /** Live read-only view of the pending tasks. */
+    public Collection<Task> pendingTasks() {
+        return pendingView;
+    }
+
+    /** Live read-only view of the completed tasks. */
+    public Collection<Task> completedTasks() {
+        return completedView;
+    }
+
+    public synchronized List<Task> getAllTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    public synchronized List<Task> getCompletedTasks() {
+        return new ArrayList<>(completed.values());
+    }
 
-        return pendingTasks;
+    public synchronized List<Task> getPendingTasks() {
+        return new ArrayList<>(pending.values());
     }
 }
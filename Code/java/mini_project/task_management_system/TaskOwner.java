@@ -0,0 +1,16 @@
+package mini_project.task_management_system;
+
+/**
+ * What a {@link Task} tells the manager holding it. Both {@link TaskManager} and
+ * {@link ConcurrentTaskManager} extend it, so a task can sit in either.
+ */
+abstract class TaskOwner {
+    // what a TaskScheduler adds its tasks through
+    abstract void addTask(Task task);
+
+    // called by Task whenever setCompleted() flips its state
+    abstract void completionChanged(Task task);
+
+    // called by Task when its title or description is set
+    abstract void taskUpdated(Task task);
+}
@@ -0,0 +1,333 @@
+package mini_project.task_management_system;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the work of submitted tasks on a work-stealing {@link ForkJoinPool} and marks
+ * each task completed in its manager when the work returns normally. A task whose
+ * work throws stays pending and is counted as failed.
+ *
+ * Submitted tasks are dealt round robin over one ready queue per worker, each ordered
+ * by priority (highest first), then deadline (earliest first), then submission order.
+ * Every submission hands the pool one token; the worker that runs it takes the head
+ * of its own queue, or steals the head of another one when its own is empty. So the
+ * order is decided at dispatch time, strictly within a queue and approximately across
+ * them, and no two workers share a queue lock unless one of them is stealing. Work
+ * that forks subtasks of its own gets them stolen by idle workers like in any
+ * ForkJoinPool.
+ *
+ * Submitting and completing take no lock of the scheduler's. With a
+ * {@link ConcurrentTaskManager} they take none of the manager's either; a
+ * {@link TaskManager} still serializes them on its monitor.
+ *
+ * The queue is bounded: {@link #submit(Task)} blocks while it is full and
+ * {@link #trySubmit(Task, long, TimeUnit)} gives up after a timeout, so a fast
+ * producer is slowed down to what the workers sustain.
+ */
+public class TaskScheduler implements Closeable {
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry entry) -> -entry.task.getPriority())
+            .thenComparingLong(entry -> entry.task.getDeadlineMillis())
+            .thenComparingLong(entry -> entry.sequence);
+
+    // queue waits are histogrammed by power of two, bucket b counts waits below 2^b ns
+    private static final int WAIT_BUCKETS = 64;
+
+    private final TaskOwner manager;
+    private final ForkJoinPool pool;
+    // one per worker, a power of two of them
+    private final PriorityBlockingQueue<Entry>[] ready;
+    private final Semaphore capacity;
+    private final AtomicLong sequence;
+    // submitters past their closed check that have not handed the pool their token yet, see close()
+    private final AtomicInteger submitting;
+    private volatile boolean closed;
+
+    private final LongAdder submitted;
+    private final LongAdder completed;
+    private final LongAdder failed;
+    private final LongAdder missedDeadlines;
+    private final LongAdder queueWaitNanos;
+    private final AtomicLong maxQueueWaitNanos;
+    private final LongAdder[] queueWaits;
+    private final long startNanos;
+
+    /**
+     * @param workers       parallelism of the worker pool
+     * @param queueCapacity tasks that may wait for a worker before submitters block
+     */
+    public TaskScheduler(TaskManager manager, int workers, int queueCapacity) {
+        this((TaskOwner) manager, workers, queueCapacity);
+    }
+
+    /** Like the {@link TaskManager} variant, but no submit or completion ever takes a lock. */
+    public TaskScheduler(ConcurrentTaskManager manager, int workers, int queueCapacity) {
+        this((TaskOwner) manager, workers, queueCapacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TaskScheduler(TaskOwner manager, int workers, int queueCapacity) {
+        if (workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("workers and queueCapacity must be positive");
+        }
+        this.manager = manager;
+        // an Error thrown by some work ends its worker; the pool replaces it, so one line is enough
+        this.pool = new ForkJoinPool(workers, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                (thread, error) -> System.err.println("Task scheduler worker stopped: " + error), false);
+        this.ready = new PriorityBlockingQueue[Integer.highestOneBit(workers * 2 - 1)];
+        for (int i = 0; i < ready.length; i++) {
+            ready[i] = new PriorityBlockingQueue<>(Math.min(queueCapacity / ready.length + 1, 1024), ORDER);
+        }
+        this.capacity = new Semaphore(queueCapacity);
+        this.sequence = new AtomicLong();
+        this.submitting = new AtomicInteger();
+        this.submitted = new LongAdder();
+        this.completed = new LongAdder();
+        this.failed = new LongAdder();
+        this.missedDeadlines = new LongAdder();
+        this.queueWaitNanos = new LongAdder();
+        this.maxQueueWaitNanos = new AtomicLong();
+        this.queueWaits = new LongAdder[WAIT_BUCKETS];
+        for (int i = 0; i < WAIT_BUCKETS; i++) {
+            queueWaits[i] = new LongAdder();
+        }
+        this.startNanos = System.nanoTime();
+    }
+
+    /** Adds the task to the manager and queues it, waiting while the queue is full. */
+    public void submit(Task task) throws InterruptedException {
+        capacity.acquire();
+        enqueue(task);
+    }
+
+    /** @return false if the queue stayed full for the whole timeout */
+    public boolean trySubmit(Task task, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!capacity.tryAcquire(timeout, unit)) {
+            return false;
+        }
+        enqueue(task);
+        return true;
+    }
+
+    // the caller holds a permit, which the worker gives back when it takes the task off the queue
+    private void enqueue(Task task) {
+        submitting.incrementAndGet();
+        try {
+            if (closed) {
+                capacity.release();
+                throw new RejectedExecutionException("TaskScheduler is closed");
+            }
+            try {
+                manager.addTask(task);
+            } catch (RuntimeException e) {
+                // the task never made it to the queue, so no worker will give the permit back
+                capacity.release();
+                throw e;
+            }
+            long number = sequence.getAndIncrement();
+            ready[(int) number & (ready.length - 1)].add(new Entry(task, number, System.nanoTime()));
+            submitted.increment();
+            pool.execute(this::runNext);
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    // every entry is queued before its token is handed out and every token takes exactly one entry,
+    // so while a token runs there is always an entry for it, at worst one being queued right now
+    private Entry take() {
+        Thread thread = Thread.currentThread();
+        int home = thread instanceof ForkJoinWorkerThread worker ? worker.getPoolIndex() : 0;
+        while (true) {
+            for (int i = 0; i < ready.length; i++) {
+                Entry entry = ready[(home + i) & (ready.length - 1)].poll();
+                if (entry != null) {
+                    return entry;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void runNext() {
+        Entry entry = take();
+        capacity.release();
+        long waited = System.nanoTime() - entry.enqueuedNanos;
+        queueWaitNanos.add(waited);
+        queueWaits[WAIT_BUCKETS - Long.numberOfLeadingZeros(waited | 1)].increment();
+        if (waited > maxQueueWaitNanos.get()) {
+            maxQueueWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+        Task task = entry.task;
+        if (task.getDeadlineMillis() != Task.NO_DEADLINE && System.currentTimeMillis() > task.getDeadlineMillis()) {
+            missedDeadlines.increment();
+        }
+        boolean ran = false;
+        try {
+            if (task.getWork() != null) {
+                task.getWork().run();
+            }
+            ran = true;
+        } catch (RuntimeException e) {
+            // counted below, the worker moves on to the next task
+        } finally {
+            // an Error still escapes to the pool, but not before the task is counted as failed
+            if (!ran) {
+                failed.increment();
+            }
+        }
+        if (ran) {
+            task.setCompleted(true);
+            completed.increment();
+        }
+    }
+
+    /** Tasks waiting for a worker. */
+    public int getQueued() {
+        int queued = 0;
+        for (PriorityBlockingQueue<Entry> queue : ready) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    public int getWorkers() {
+        return pool.getParallelism();
+    }
+
+    public SchedulerStats stats() {
+        long[] waits = new long[WAIT_BUCKETS];
+        for (int i = 0; i < WAIT_BUCKETS; i++) {
+            waits[i] = queueWaits[i].sum();
+        }
+        return new SchedulerStats(submitted.sum(), completed.sum(), failed.sum(), missedDeadlines.sum(),
+                queueWaitNanos.sum(), maxQueueWaitNanos.get(), waits, System.nanoTime() - startNanos);
+    }
+
+    /** Stops taking tasks and waits until every queued task has run. */
+    @Override
+    public void close() {
+        closed = true;
+        // a submitter that got past the check before it was set still hands the pool its token
+        while (submitting.get() != 0) {
+            Thread.yield();
+        }
+        pool.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.DAYS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Entry {
+        private final Task task;
+        private final long sequence;
+        private final long enqueuedNanos;
+
+        Entry(Task task, long sequence, long enqueuedNanos) {
+            this.task = task;
+            this.sequence = sequence;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /** Counters of a scheduler since it was created. */
+    public static final class SchedulerStats {
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+        private final long missedDeadlines;
+        private final long queueWaitNanos;
+        private final long maxQueueWaitNanos;
+        private final long[] queueWaits;
+        private final long elapsedNanos;
+
+        SchedulerStats(long submitted, long completed, long failed, long missedDeadlines,
+                       long queueWaitNanos, long maxQueueWaitNanos, long[] queueWaits, long elapsedNanos) {
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.missedDeadlines = missedDeadlines;
+            this.queueWaitNanos = queueWaitNanos;
+            this.maxQueueWaitNanos = maxQueueWaitNanos;
+            this.queueWaits = queueWaits;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        /** Tasks that only started after their deadline. */
+        public long getMissedDeadlines() {
+            return missedDeadlines;
+        }
+
+        public double getMeanQueueWaitNanos() {
+            long dispatched = completed + failed;
+            return dispatched == 0 ? 0 : (double) queueWaitNanos / dispatched;
+        }
+
+        public long getMaxQueueWaitNanos() {
+            return maxQueueWaitNanos;
+        }
+
+        /**
+         * Queue wait that {@code percentile} percent of the dispatched tasks stayed
+         * under, rounded up to a power of two nanoseconds; 0 before any dispatch.
+         */
+        public long getQueueWaitPercentileNanos(double percentile) {
+            long dispatched = Arrays.stream(queueWaits).sum();
+            long rank = (long) Math.ceil(dispatched * percentile / 100);
+            long seen = 0;
+            for (int bucket = 0; bucket < queueWaits.length; bucket++) {
+                seen += queueWaits[bucket];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(1L << bucket, maxQueueWaitNanos);
+                }
+            }
+            return 0;
+        }
+
+        public double getTasksPerSecond() {
+            return elapsedNanos == 0 ? 0 : completed * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "SchedulerStats{submitted=" + submitted + ", completed=" + completed + ", failed=" + failed
+                    + ", missedDeadlines=" + missedDeadlines + ", meanQueueWaitNanos=" + (long) getMeanQueueWaitNanos()
+                    + ", p50QueueWaitNanos=" + getQueueWaitPercentileNanos(50)
+                    + ", p99QueueWaitNanos=" + getQueueWaitPercentileNanos(99)
+                    + ", maxQueueWaitNanos=" + maxQueueWaitNanos + "}";
+        }
+    }
+}
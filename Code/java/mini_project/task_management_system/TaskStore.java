@@ -0,0 +1,369 @@
+package mini_project.task_management_system;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import mini_project.journal.Journal;
+
+/**
+ * Durable storage for a {@link TaskManager}: every add, remove, completion and edit is
+ * appended to a segmented {@link Journal}, and a background compactor folds sealed
+ * segments into one file that holds only the tasks still alive.
+ *
+ * compacted-N holds the live tasks as of the end of segment-N, so recovery loads the
+ * newest compacted file and replays only the segments after it. The compactor reads
+ * the sealed segments from disk rather than the manager, so it never takes the
+ * manager's monitor and writers keep appending to the current segment meanwhile.
+ *
+ * Work attached to a task is code and is not stored; recovered tasks have none.
+ * Recovered tasks are listed in the order they were added, including the pending and
+ * completed partitions.
+ */
+public class TaskStore implements TaskListener, Closeable {
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte COMPLETION = 3;
+    private static final byte UPDATE = 4;
+    // segments are segment-N.log
+    private static final String JOURNAL = "segment";
+
+    public enum Durability {
+        ALWAYS(Journal.FsyncPolicy.ALWAYS),
+        INTERVAL(Journal.FsyncPolicy.INTERVAL),
+        NEVER(Journal.FsyncPolicy.NEVER);
+
+        private final Journal.FsyncPolicy policy;
+
+        Durability(Journal.FsyncPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    private final Path dir;
+    private final TaskManager manager;
+    private final Journal journal;
+    private final int compactAfterSegments;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compactionRunning;
+    // newest segment folded into a compacted file, -1 before the first compaction
+    private volatile long compacted;
+    // newest record this thread appended and has not waited for, see changesApplied()
+    private final ThreadLocal<long[]> unsynced;
+
+    private TaskStore(Path dir, TaskManager manager, long compacted, long segment, Durability durability,
+                      long fsyncIntervalMillis, long segmentBytes, int compactAfterSegments) throws IOException {
+        this.dir = dir;
+        this.manager = manager;
+        this.compacted = compacted;
+        this.compactAfterSegments = compactAfterSegments;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "task-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactionRunning = new AtomicBoolean();
+        this.unsynced = ThreadLocal.withInitial(() -> new long[1]);
+        this.journal = new Journal(dir, JOURNAL, segment, durability.policy, fsyncIntervalMillis,
+                segmentBytes, this::segmentSealed);
+    }
+
+    public static TaskStore open(Path dir) throws IOException {
+        return open(dir, Durability.INTERVAL, 10, 64L << 20, 4);
+    }
+
+    /**
+     * Recovers the tasks stored in {@code dir} (or starts an empty manager) and journals
+     * every later change. A compaction starts in the background once
+     * {@code compactAfterSegments} segments of {@code segmentBytes} each have been
+     * sealed since the last one.
+     *
+     * With {@link Durability#ALWAYS} each change waits for its fsync after the manager's
+     * monitor is released, so changes made at the same time share one;
+     * {@link Durability#INTERVAL} bounds the loss window to {@code fsyncIntervalMillis}
+     * instead.
+     */
+    public static TaskStore open(Path dir, Durability durability, long fsyncIntervalMillis,
+                                 long segmentBytes, int compactAfterSegments) throws IOException {
+        if (segmentBytes <= 0 || compactAfterSegments <= 0) {
+            throw new IllegalArgumentException("segmentBytes and compactAfterSegments must be positive");
+        }
+        Files.createDirectories(dir);
+        TaskManager manager = new TaskManager();
+
+        TreeSet<Long> compactions = Journal.numbered(dir, "compacted-", ".dat");
+        long compacted = compactions.isEmpty() ? -1 : compactions.last();
+        if (compacted >= 0) {
+            Path file = compactedPath(dir, compacted);
+            if (Journal.read(file, in -> apply(in, manager)) != Files.size(file)) {
+                throw new IOException("Corrupt compacted journal: " + file);
+            }
+        }
+
+        long segment = compacted;
+        TreeSet<Long> tail = new TreeSet<>(Journal.segments(dir, JOURNAL).tailSet(compacted, false));
+        for (long number : tail) {
+            Path file = Journal.segmentPath(dir, JOURNAL, number);
+            long validLength = Journal.read(file, in -> apply(in, manager));
+            if (validLength < Files.size(file)) {
+                // only the segment being written at the crash can be torn, the journal forces every sealed one
+                if (number != tail.last()) {
+                    throw new IOException("Corrupt journal segment: " + file);
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+            segment = number;
+        }
+
+        TaskStore store = new TaskStore(dir, manager, compacted, segment + 1, durability,
+                fsyncIntervalMillis, segmentBytes, compactAfterSegments);
+        manager.addListener(store);
+        return store;
+    }
+
+    public TaskManager getManager() {
+        return manager;
+    }
+
+    /** Seals the current segment and folds every sealed segment into a new compacted file. */
+    public void compact() throws IOException {
+        compactThrough(journal.roll());
+    }
+
+    @Override
+    public void close() throws IOException {
+        manager.removeListener(this);
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    // listener callbacks, one journal record per change
+
+    @Override
+    public void taskAdded(Task task) {
+        log(out -> writeAdd(out, task.getId(), task.getTitle(), task.getDescription(), task.isCompleted(),
+                task.getPriority(), task.getDeadlineMillis()));
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        long id = task.getId();
+        log(out -> {
+            out.writeByte(REMOVE);
+            out.writeLong(id);
+        });
+    }
+
+    @Override
+    public void taskCompletionChanged(Task task) {
+        long id = task.getId();
+        boolean completed = task.isCompleted();
+        log(out -> {
+            out.writeByte(COMPLETION);
+            out.writeLong(id);
+            out.writeBoolean(completed);
+        });
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        long id = task.getId();
+        String title = task.getTitle();
+        String description = task.getDescription();
+        log(out -> {
+            out.writeByte(UPDATE);
+            out.writeLong(id);
+            out.writeUTF(title);
+            out.writeUTF(description);
+        });
+    }
+
+    // runs after the manager released its monitor, so changes from many threads waiting here at once share one fsync
+    @Override
+    public void changesApplied() {
+        long[] ticket = unsynced.get();
+        if (ticket[0] == 0) {
+            return;
+        }
+        try {
+            journal.sync(ticket[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ticket[0] = 0;
+    }
+
+    private void log(Journal.Record record) {
+        try {
+            // callbacks run under the manager's monitor, so the wait for the fsync is left to changesApplied()
+            unsynced.get()[0] = journal.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeAdd(DataOutputStream out, long id, String title, String description,
+                                 boolean completed, int priority, long deadlineMillis) throws IOException {
+        out.writeByte(ADD);
+        out.writeLong(id);
+        out.writeUTF(title);
+        out.writeUTF(description);
+        out.writeBoolean(completed);
+        out.writeInt(priority);
+        out.writeLong(deadlineMillis);
+    }
+
+    private static void apply(DataInputStream in, TaskManager manager) throws IOException {
+        byte type = in.readByte();
+        long id = in.readLong();
+        switch (type) {
+            case ADD -> manager.addTask(new Task(id, in.readUTF(), in.readUTF(), in.readBoolean(),
+                    in.readInt(), in.readLong()));
+            case REMOVE -> manager.removeTask(id);
+            case COMPLETION -> {
+                Task task = manager.getTask(id);
+                if (task != null) {
+                    task.setCompleted(in.readBoolean());
+                }
+            }
+            case UPDATE -> {
+                Task task = manager.getTask(id);
+                if (task != null) {
+                    task.setTitle(in.readUTF());
+                    task.setDescription(in.readUTF());
+                }
+            }
+            default -> throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    // runs on the flusher thread, so the actual work is handed to the compactor
+    private void segmentSealed(long segment) {
+        if (segment - compacted < compactAfterSegments || !compactionRunning.compareAndSet(false, true)) {
+            return;
+        }
+        compactor.execute(() -> {
+            try {
+                compactThrough(journal.segment() - 1);
+            } catch (IOException e) {
+                System.err.println("Task journal compaction failed: " + e.getMessage());
+            } finally {
+                compactionRunning.set(false);
+            }
+        });
+    }
+
+    /**
+     * Writes compacted-{@code upTo} from the previous compacted file plus the sealed
+     * segments after it, then deletes the files it replaces once the rename is durable.
+     */
+    private synchronized void compactThrough(long upTo) throws IOException {
+        if (upTo <= compacted) {
+            return;
+        }
+        Map<Long, Stored> live = new LinkedHashMap<>();
+        if (compacted >= 0) {
+            Journal.read(compactedPath(dir, compacted), in -> fold(in, live));
+        }
+        for (long segment : Journal.segments(dir, JOURNAL).subSet(compacted, false, upTo, true)) {
+            Journal.read(Journal.segmentPath(dir, JOURNAL, segment), in -> fold(in, live));
+        }
+
+        Path target = compactedPath(dir, upTo);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Journal.Buffer buffer = new Journal.Buffer();
+            for (Map.Entry<Long, Stored> entry : live.entrySet()) {
+                long id = entry.getKey();
+                Stored task = entry.getValue();
+                buffer.record(out -> writeAdd(out, id, task.title, task.description, task.completed,
+                        task.priority, task.deadlineMillis));
+                if (buffer.size() >= 1 << 20) {
+                    buffer.writeTo(channel);
+                    buffer.reset();
+                }
+            }
+            buffer.writeTo(channel);
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // a crash must not find the segments gone but the rename still in the page cache
+        Journal.forceDirectory(dir);
+        long previous = compacted;
+        compacted = upTo;
+
+        if (previous >= 0) {
+            Files.deleteIfExists(compactedPath(dir, previous));
+        }
+        for (long segment : Journal.segments(dir, JOURNAL).headSet(upTo, true)) {
+            Files.deleteIfExists(Journal.segmentPath(dir, JOURNAL, segment));
+        }
+    }
+
+    // the same records as apply(), folded into plain values instead of a manager
+    private static void fold(DataInputStream in, Map<Long, Stored> live) throws IOException {
+        byte type = in.readByte();
+        long id = in.readLong();
+        switch (type) {
+            case ADD -> live.putIfAbsent(id, new Stored(in.readUTF(), in.readUTF(), in.readBoolean(),
+                    in.readInt(), in.readLong()));
+            case REMOVE -> live.remove(id);
+            case COMPLETION -> {
+                Stored task = live.get(id);
+                if (task != null) {
+                    task.completed = in.readBoolean();
+                }
+            }
+            case UPDATE -> {
+                Stored task = live.get(id);
+                if (task != null) {
+                    task.title = in.readUTF();
+                    task.description = in.readUTF();
+                }
+            }
+            default -> throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    private static Path compactedPath(Path dir, long segment) {
+        return dir.resolve("compacted-" + segment + ".dat");
+    }
+
+    private static final class Stored {
+        private String title;
+        private String description;
+        private boolean completed;
+        private final int priority;
+        private final long deadlineMillis;
+
+        Stored(String title, String description, boolean completed, int priority, long deadlineMillis) {
+            this.title = title;
+            this.description = description;
+            this.completed = completed;
+            this.priority = priority;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package mini_project.task_management_system;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable radix trie from task id to task, 32 ways per level. Adding or removing a
+ * task copies only the path from the root to its leaf (a handful of small arrays) and
+ * shares everything else with the previous trie, so old versions stay valid for as
+ * long as anyone holds them.
+ *
+ * Nodes keep only the slots in use, found through a 32 bit bitmap, so a trie with
+ * gaps in its ids stays compact. Iteration is in ascending id order.
+ */
+final class TaskTrie extends AbstractCollection<Task> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // 63 bit ids in 5 bit steps
+    private static final int MAX_DEPTH = 13;
+
+    static final TaskTrie EMPTY = new TaskTrie(null, 0, 0);
+
+    // null only in the empty trie
+    private final Node root;
+    // shift of the root level, leaves are at shift 0
+    private final int shift;
+    private final int size;
+
+    private TaskTrie(Node root, int shift, int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    Task get(long id) {
+        if (root == null || (id >>> shift) >>> BITS != 0) {
+            return null;
+        }
+        Node node = root;
+        for (int s = shift; ; s -= BITS) {
+            int bit = 1 << ((id >>> s) & MASK);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (s == 0) {
+                return (Task) slot;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    /** A trie that maps the task's id to the task, replacing whatever was there. */
+    TaskTrie with(Task task) {
+        long id = task.getId();
+        int grown = size + (get(id) == null ? 1 : 0);
+        if (root == null) {
+            int s = 0;
+            while ((id >>> s) >>> BITS != 0) {
+                s += BITS;
+            }
+            return new TaskTrie(insert(null, s, id, task), s, 1);
+        }
+        Node top = root;
+        int s = shift;
+        // ids only grow, so a new level goes on top with the old root as its first child
+        while ((id >>> s) >>> BITS != 0) {
+            top = new Node(1, new Object[]{top});
+            s += BITS;
+        }
+        return new TaskTrie(insert(top, s, id, task), s, grown);
+    }
+
+    /** A trie without the task with this id, or this trie if there is none. */
+    TaskTrie without(long id) {
+        if (get(id) == null) {
+            return this;
+        }
+        Node top = delete(root, shift, id);
+        return top == null ? EMPTY : new TaskTrie(top, shift, size - 1);
+    }
+
+    private static Node insert(Node node, int s, long id, Task task) {
+        int bit = 1 << ((id >>> s) & MASK);
+        if (node == null) {
+            return new Node(bit, new Object[]{s == 0 ? task : insert(null, s - BITS, id, task)});
+        }
+        int pos = Integer.bitCount(node.bitmap & (bit - 1));
+        if ((node.bitmap & bit) != 0) {
+            Object[] slots = node.slots.clone();
+            slots[pos] = s == 0 ? task : insert((Node) slots[pos], s - BITS, id, task);
+            return new Node(node.bitmap, slots);
+        }
+        Object[] slots = new Object[node.slots.length + 1];
+        System.arraycopy(node.slots, 0, slots, 0, pos);
+        slots[pos] = s == 0 ? task : insert(null, s - BITS, id, task);
+        System.arraycopy(node.slots, pos, slots, pos + 1, node.slots.length - pos);
+        return new Node(node.bitmap | bit, slots);
+    }
+
+    // the id is known to be present; returns null when the node ends up empty
+    private static Node delete(Node node, int s, long id) {
+        int bit = 1 << ((id >>> s) & MASK);
+        int pos = Integer.bitCount(node.bitmap & (bit - 1));
+        Node child = s == 0 ? null : delete((Node) node.slots[pos], s - BITS, id);
+        if (child != null) {
+            Object[] slots = node.slots.clone();
+            slots[pos] = child;
+            return new Node(node.bitmap, slots);
+        }
+        if (node.slots.length == 1) {
+            return null;
+        }
+        Object[] slots = new Object[node.slots.length - 1];
+        System.arraycopy(node.slots, 0, slots, 0, pos);
+        System.arraycopy(node.slots, pos + 1, slots, pos, slots.length - pos);
+        return new Node(node.bitmap & ~bit, slots);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Task task && get(task.getId()) == task;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Cursor();
+    }
+
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    // depth-first walk with an explicit stack, slots are visited in bitmap order, which is id order
+    private final class Cursor implements Iterator<Task> {
+        private final Node[] nodes = new Node[MAX_DEPTH];
+        private final int[] positions = new int[MAX_DEPTH];
+        private final int leafDepth = shift / BITS;
+        private int depth;
+        private Task next;
+
+        Cursor() {
+            if (root == null) {
+                depth = -1;
+            } else {
+                nodes[0] = root;
+                advance();
+            }
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                if (positions[depth] == node.slots.length) {
+                    depth--;
+                    continue;
+                }
+                Object slot = node.slots[positions[depth]++];
+                if (depth == leafDepth) {
+                    next = (Task) slot;
+                    return;
+                }
+                nodes[++depth] = (Node) slot;
+                positions[depth] = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Task next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Task task = next;
+            advance();
+            return task;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package mini_project.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark once per catalog size and once per thread count, and writes
+ * all results to one file in JMH's JSON format. JMH takes a single thread count per
+ * run, so the thread sweep of the contended benchmarks happens here.
+ *
+ * Usage: BenchmarkRunner [-sizes 10000,1000000,10000000] [-threads 1,2,4,...,64]
+ *        [-filter regex] [-out jmh-result.json] [-jvmArgs "-Xmx16g"]
+ *
+ * Task benchmarks get a tenth of each book count (at least 1000), as tasks are
+ * heavier per entry. The worker count of the scheduler and graph benchmarks follows
+ * {@code -threads}.
+ */
+public final class BenchmarkRunner {
+    private String filter = "";
+    private String[] jvmArgs = new String[0];
+    private final List<RunResult> results = new ArrayList<>();
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        int[] sizes = {10_000, 1_000_000};
+        int[] threads = {1, 2, 4, 8, 16, 32, 64};
+        String out = "jmh-result.json";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-sizes" -> sizes = parseInts(args[i + 1]);
+                case "-threads" -> threads = parseInts(args[i + 1]);
+                case "-filter" -> runner.filter = args[i + 1];
+                case "-out" -> out = args[i + 1];
+                case "-jvmArgs" -> runner.jvmArgs = args[i + 1].trim().split("\\s+");
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        String[] books = Arrays.stream(sizes).mapToObj(String::valueOf).toArray(String[]::new);
+        String[] tasks = Arrays.stream(sizes).map(size -> Math.max(1000, size / 10)).distinct()
+                .mapToObj(String::valueOf).toArray(String[]::new);
+        String[] workers = Arrays.stream(threads).mapToObj(String::valueOf).toArray(String[]::new);
+
+        runner.run(runner.options(LibraryBenchmark.class).param("books", books));
+        runner.run(runner.options(FederatedLibraryBenchmark.class).param("books", books));
+        runner.run(runner.options(TaskManagerBenchmark.class).param("tasks", tasks));
+        runner.run(runner.options(TaskSchedulerBenchmark.class).param("workers", workers));
+        runner.run(runner.options(TaskGraphBenchmark.class).param("workers", workers));
+        for (int count : threads) {
+            runner.run(runner.options(CounterBenchmark.class).threads(count));
+            // one writer against a growing number of readers
+            runner.run(runner.options(TaskReadBenchmark.class).threadGroups(1, count));
+        }
+
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(runner.results);
+        System.out.println("Results written to " + out);
+    }
+
+    // the benchmarks of one class that also match the filter
+    private ChainedOptionsBuilder options(Class<?> benchmark) {
+        String lookahead = filter.isEmpty() ? "" : "(?=.*(?:" + filter + "))";
+        return new OptionsBuilder()
+                .include("^" + lookahead + Pattern.quote(benchmark.getName() + "."))
+                .jvmArgsAppend(jvmArgs);
+    }
+
+    private void run(ChainedOptionsBuilder options) throws RunnerException {
+        try {
+            results.addAll(new Runner(options.build()).run());
+        } catch (NoBenchmarksException e) {
+            // everything in this class was filtered out
+        }
+    }
+
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,51 @@
+package mini_project.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import mini_project.library_management_system.Book;
+
+/** Random catalogs shared by the library benchmarks, the same for every run. */
+final class Catalogs {
+    // lookup keys are drawn from tables this size, indexed with a wrapping counter
+    static final int KEYS = 1 << 16;
+
+    private Catalogs() {
+    }
+
+    static String[] words(Random random) {
+        String[] words = new String[4096];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random);
+        }
+        return words;
+    }
+
+    static List<Book> books(Random random, String[] words, int books) {
+        List<Book> catalog = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            catalog.add(new Book(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    words[random.nextInt(words.length)], "isbn-" + i));
+        }
+        return catalog;
+    }
+
+    // more distinct queries than the search cache holds, so most searches reach the index
+    static String[] queries(Random random, String[] words) {
+        String[] queries = new String[KEYS];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = words[random.nextInt(words.length)].substring(0, 4);
+        }
+        return queries;
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[5 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        word[0] = Character.toUpperCase(word[0]);
+        return new String(word);
+    }
+}
@@ -0,0 +1,83 @@
+package mini_project.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@code Counter}, {@code LockCounter} and {@code AtomicCounter} of
+ * MultithreadingConcurrencyExample, all threads incrementing one shared counter. The
+ * runner repeats this class for every thread count it is given.
+ *
+ * The counters are package-private classes in the default package, which code in a
+ * named package (and JMH insists on one) cannot name. They are reached through
+ * static final method handles instead, which the JIT inlines like a direct call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CounterBenchmark {
+    private static final String EXAMPLE = "MultithreadingConcurrencyExample$";
+    private static final MethodHandle SYNCHRONIZED = increment(EXAMPLE + "Counter");
+    private static final MethodHandle LOCK = increment(EXAMPLE + "LockCounter");
+    private static final MethodHandle ATOMIC = increment(EXAMPLE + "AtomicCounter");
+
+    private Object counter;
+    private Object lockCounter;
+    private Object atomicCounter;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        counter = create(EXAMPLE + "Counter");
+        lockCounter = create(EXAMPLE + "LockCounter");
+        atomicCounter = create(EXAMPLE + "AtomicCounter");
+    }
+
+    @Benchmark
+    public void synchronizedCounter() throws Throwable {
+        SYNCHRONIZED.invokeExact(counter);
+    }
+
+    @Benchmark
+    public void lockCounter() throws Throwable {
+        LOCK.invokeExact(lockCounter);
+    }
+
+    @Benchmark
+    public void atomicCounter() throws Throwable {
+        ATOMIC.invokeExact(atomicCounter);
+    }
+
+    private static MethodHandle increment(String className) {
+        try {
+            Method method = Class.forName(className).getDeclaredMethod("increment");
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(void.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static Object create(String className) throws ReflectiveOperationException {
+        Constructor<?> constructor = Class.forName(className).getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+}
@@ -0,0 +1,68 @@
+package mini_project.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mini_project.library_management_system.Book;
+import mini_project.library_management_system.ConsoleListener;
+import mini_project.library_management_system.FederatedLibrary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scatter-gather searches over a {@link FederatedLibrary}, to compare with the
+ * single-library numbers of {@link LibraryBenchmark} at the same sizes. A shard count
+ * of 0 means one shard per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FederatedLibraryBenchmark {
+    @Param({"10000", "1000000"})
+    public int books;
+
+    @Param({"0"})
+    public int shards;
+
+    private FederatedLibrary library;
+    private String[] queries;
+
+    @Setup
+    public void setUp() {
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        library = new FederatedLibrary("Benchmark", count);
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        Random random = new Random(42);
+        String[] words = Catalogs.words(random);
+        library.addBooks(Catalogs.books(random, words, books));
+        queries = Catalogs.queries(random, words);
+    }
+
+    @Benchmark
+    public List<Book> searchBooks(LibraryBenchmark.Cursor cursor) {
+        return library.searchBooks(queries[cursor.next()]);
+    }
+
+    @Benchmark
+    public List<Book> searchBooksLimit(LibraryBenchmark.Cursor cursor) {
+        return library.searchBooks(queries[cursor.next()], 20);
+    }
+
+    @Benchmark
+    public List<Book> getAvaliableBooks() {
+        return library.getAvaliableBooks();
+    }
+}
@@ -0,0 +1,98 @@
+package mini_project.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mini_project.library_management_system.Book;
+import mini_project.library_management_system.ConsoleListener;
+import mini_project.library_management_system.Library;
+import mini_project.library_management_system.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups and listings of a {@link Library}. 10M books need a large heap, pass
+ * {@code -sizes 10000,1000000,10000000 -jvmArgs -Xmx16g} to the runner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LibraryBenchmark {
+    @Param({"10000", "1000000"})
+    public int books;
+
+    private Library library;
+    private String[] isbns;
+    private String[] ids;
+    private String[] queries;
+
+    @Setup
+    public void setUp() {
+        library = new Library("Benchmark");
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        Random random = new Random(42);
+        String[] words = Catalogs.words(random);
+        List<Book> catalog = Catalogs.books(random, words, books);
+        library.addBooks(catalog);
+        User[] users = new User[Math.max(1, books / 10)];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new User("User " + i, "user-" + i);
+            library.addUser(users[i]);
+        }
+        // a tenth of the books are out, so the availability lists are not trivial
+        for (int i = 0; i < books / 10; i++) {
+            library.borrowBook(users[i % users.length], catalog.get(random.nextInt(books)));
+        }
+
+        isbns = new String[Catalogs.KEYS];
+        ids = new String[Catalogs.KEYS];
+        for (int i = 0; i < Catalogs.KEYS; i++) {
+            isbns[i] = "isbn-" + random.nextInt(books);
+            ids[i] = "user-" + random.nextInt(users.length);
+        }
+        queries = Catalogs.queries(random, words);
+    }
+
+    @Benchmark
+    public Book findBook(Cursor cursor) {
+        return library.findBook(isbns[cursor.next()]);
+    }
+
+    @Benchmark
+    public User findUser(Cursor cursor) {
+        return library.findUser(ids[cursor.next()]);
+    }
+
+    @Benchmark
+    public List<Book> searchBooks(Cursor cursor) {
+        return library.searchBooks(queries[cursor.next()]);
+    }
+
+    @Benchmark
+    public List<Book> getAvaliableBooks() {
+        return library.getAvaliableBooks();
+    }
+
+    /** Walks the key tables, each thread on its own. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next() {
+            return next++ & (Catalogs.KEYS - 1);
+        }
+    }
+}
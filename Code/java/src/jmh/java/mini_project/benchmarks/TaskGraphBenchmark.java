@@ -0,0 +1,81 @@
+package mini_project.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import mini_project.task_management_system.Task;
+import mini_project.task_management_system.TaskGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Wall clock time to execute a 100K task DAG: 100 layers of 1000, every task depending
+ * on two random tasks of the layer above. A finished graph has nothing left to run, so
+ * a fresh one is built before every invocation; each invocation takes milliseconds,
+ * which keeps the per-invocation setup out of the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskGraphBenchmark {
+    private static final int LAYERS = 100;
+    private static final int WIDTH = 1000;
+    private static final Runnable NODE = () -> Blackhole.consumeCPU(250);
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int workers;
+
+    private ForkJoinPool pool;
+    private TaskGraph graph;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void start() {
+        pool = new ForkJoinPool(workers);
+        random = new Random(11);
+    }
+
+    @Setup(Level.Invocation)
+    public void build() {
+        graph = new TaskGraph();
+        Task[] above = null;
+        for (int layer = 0; layer < LAYERS; layer++) {
+            Task[] current = new Task[WIDTH];
+            for (int i = 0; i < WIDTH; i++) {
+                current[i] = new Task("Node", "", NODE);
+                graph.addTask(current[i]);
+                if (above != null) {
+                    graph.addDependency(current[i], above[random.nextInt(WIDTH)]);
+                    graph.addDependency(current[i], above[random.nextInt(WIDTH)]);
+                }
+            }
+            above = current;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public TaskGraph.GraphResult execute() throws InterruptedException {
+        return graph.execute(pool).await();
+    }
+}
@@ -0,0 +1,66 @@
+package mini_project.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mini_project.task_management_system.Task;
+import mini_project.task_management_system.TaskManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Listing and removing tasks of a {@link TaskManager} where half the tasks are completed. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+    @Param({"1000", "100000"})
+    public int tasks;
+
+    private TaskManager manager;
+    private Task[] picks;
+
+    @Setup
+    public void setUp() {
+        manager = new TaskManager();
+        Task[] all = new Task[tasks];
+        for (int i = 0; i < tasks; i++) {
+            all[i] = new Task("Task " + i, "Description " + i);
+            manager.addTask(all[i]);
+            if (i % 2 == 0) {
+                manager.markTaskAsCompleted(all[i]);
+            }
+        }
+        Random random = new Random(7);
+        picks = new Task[Catalogs.KEYS];
+        for (int i = 0; i < picks.length; i++) {
+            picks[i] = all[random.nextInt(tasks)];
+        }
+    }
+
+    @Benchmark
+    public List<Task> getPendingTasks() {
+        return manager.getPendingTasks();
+    }
+
+    // the removed task is added back, so the manager keeps its size
+    @Benchmark
+    public Task removeTask(LibraryBenchmark.Cursor cursor) {
+        Task task = picks[cursor.next()];
+        manager.removeTask(task);
+        manager.addTask(task);
+        return task;
+    }
+}
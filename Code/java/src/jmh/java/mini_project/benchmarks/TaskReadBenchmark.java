@@ -0,0 +1,122 @@
+package mini_project.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import mini_project.task_management_system.ConcurrentTaskManager;
+import mini_project.task_management_system.Task;
+import mini_project.task_management_system.TaskManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookups from several readers while one writer keeps completing and reopening random
+ * tasks, against the synchronized {@link TaskManager} and the snapshot reads of
+ * {@link ConcurrentTaskManager}. Each group is one writer and one reader by default;
+ * the runner sweeps the reader count with {@code threadGroups(1, readers)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskReadBenchmark {
+    private static final int TASKS = 100_000;
+
+    @State(Scope.Group)
+    public static class Locked {
+        TaskManager manager;
+        Task[] tasks;
+        long[] ids;
+
+        @Setup
+        public void setUp() {
+            manager = new TaskManager();
+            tasks = new Task[TASKS];
+            for (int i = 0; i < TASKS; i++) {
+                tasks[i] = new Task("Task " + i, "");
+                manager.addTask(tasks[i]);
+            }
+            ids = ids(tasks);
+        }
+    }
+
+    @State(Scope.Group)
+    public static class LockFree {
+        ConcurrentTaskManager manager;
+        Task[] tasks;
+        long[] ids;
+
+        @Setup
+        public void setUp() {
+            manager = new ConcurrentTaskManager();
+            tasks = new Task[TASKS];
+            for (int i = 0; i < TASKS; i++) {
+                tasks[i] = new Task("Task " + i, "");
+                manager.addTask(tasks[i]);
+            }
+            ids = ids(tasks);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private final Random random = new Random(17);
+
+        Task pick(Task[] tasks) {
+            return tasks[random.nextInt(tasks.length)];
+        }
+    }
+
+    @Benchmark
+    @Group("synchronizedRead")
+    @GroupThreads(1)
+    public void synchronizedWrite(Locked state, Writer writer) {
+        Task task = writer.pick(state.tasks);
+        task.setCompleted(!task.isCompleted());
+    }
+
+    @Benchmark
+    @Group("synchronizedRead")
+    @GroupThreads(1)
+    public int synchronizedRead(Locked state, LibraryBenchmark.Cursor cursor) {
+        Task task = state.manager.getTask(state.ids[cursor.next()]);
+        return state.manager.countPending() + (task != null ? 1 : 0);
+    }
+
+    @Benchmark
+    @Group("snapshotRead")
+    @GroupThreads(1)
+    public void snapshotWrite(LockFree state, Writer writer) {
+        Task task = writer.pick(state.tasks);
+        task.setCompleted(!task.isCompleted());
+    }
+
+    @Benchmark
+    @Group("snapshotRead")
+    @GroupThreads(1)
+    public int snapshotRead(LockFree state, LibraryBenchmark.Cursor cursor) {
+        ConcurrentTaskManager.Snapshot snapshot = state.manager.snapshot();
+        Task task = snapshot.getTask(state.ids[cursor.next()]);
+        return snapshot.countPending() + (task != null ? 1 : 0);
+    }
+
+    private static long[] ids(Task[] tasks) {
+        Random random = new Random(13);
+        long[] ids = new long[Catalogs.KEYS];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks[random.nextInt(tasks.length)].getId();
+        }
+        return ids;
+    }
+}
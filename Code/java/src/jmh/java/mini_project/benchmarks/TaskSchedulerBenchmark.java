@@ -0,0 +1,76 @@
+package mini_project.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import mini_project.task_management_system.ConcurrentTaskManager;
+import mini_project.task_management_system.Task;
+import mini_project.task_management_system.TaskScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Tasks per second through a {@link TaskScheduler}. One producer submits small jobs
+ * into a 1024 slot queue, so it runs into backpressure and the score is the rate the
+ * workers sustain. The scheduler is drained between iterations, outside the timing,
+ * and prints its queue wait percentiles then, since throughput alone hides how long
+ * tasks sat in the queue.
+ *
+ * The tasks go to a {@link ConcurrentTaskManager}, and the producer removes the
+ * finished ones every 1024 submissions, so the manager stays small instead of holding
+ * every task of the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskSchedulerBenchmark {
+    // about a microsecond of work per job
+    private static final Runnable JOB = () -> Blackhole.consumeCPU(250);
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int workers;
+
+    private ConcurrentTaskManager manager;
+    private TaskScheduler scheduler;
+    private int submitted;
+
+    @Setup(Level.Iteration)
+    public void start() {
+        manager = new ConcurrentTaskManager();
+        scheduler = new TaskScheduler(manager, workers, 1024);
+        submitted = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() {
+        scheduler.close();
+        TaskScheduler.SchedulerStats stats = scheduler.stats();
+        System.out.printf("%n  queue wait: p50 %d us, p99 %d us, max %d us, mean %.1f us%n",
+                stats.getQueueWaitPercentileNanos(50) / 1000, stats.getQueueWaitPercentileNanos(99) / 1000,
+                stats.getMaxQueueWaitNanos() / 1000, stats.getMeanQueueWaitNanos() / 1000);
+    }
+
+    @Benchmark
+    public void submit() throws InterruptedException {
+        scheduler.submit(new Task("Job", "", JOB));
+        if (++submitted % 1024 == 0) {
+            for (Task task : manager.snapshot().completedTasks()) {
+                manager.removeTask(task);
+            }
+        }
+    }
+}
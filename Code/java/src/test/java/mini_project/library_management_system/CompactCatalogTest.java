@@ -0,0 +1,136 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class CompactCatalogTest {
+
+    @Test
+    void booksReadTheirFieldsFromTheCatalog() {
+        Library library = library(new CompactCatalog());
+        Book book = new Book("Der Zauberberg", "Thomas Mann", "978-3-10-048160-6");
+        Book accented = new Book("Les Misérables", "Victor Hugo", "978-2-07-040850-4");
+        library.addBook(book);
+        library.addBook(accented);
+
+        assertSame(book, library.findBook("978-3-10-048160-6"));
+        assertEquals("Der Zauberberg", book.getTitle());
+        assertEquals("Thomas Mann", book.getAuthor());
+        assertEquals("Les Misérables", accented.getTitle());
+        assertEquals(List.of(book), library.searchBooks("zauber"));
+        assertEquals(List.of(accented), library.searchBooks("misé"));
+        assertEquals(List.of(accented), library.searchBooks("HUGO"));
+        assertEquals(List.of(book), library.searchBooks("48160"));
+
+        library.removeBook(book);
+        assertNull(library.findBook("978-3-10-048160-6"));
+        // a removed book gets its strings back
+        assertEquals("Der Zauberberg", book.getTitle());
+        assertEquals("Thomas Mann", book.getAuthor());
+        assertEquals("978-3-10-048160-6", book.getISBN());
+        assertEquals(List.of(), library.searchBooks("zauber"));
+    }
+
+    @Test
+    void removedRecordsAreReused() {
+        CompactCatalog catalog = new CompactCatalog(1024);
+        Library library = library(catalog);
+        List<Book> round = new ArrayList<>();
+        long footprint = 0;
+        for (int generation = 0; generation < 20; generation++) {
+            for (Book book : round) {
+                library.removeBook(book);
+            }
+            round.clear();
+            for (int i = 0; i < 10_000; i++) {
+                Book book = new Book("Title " + generation + " " + i, "Author " + generation + " " + i % 100,
+                        "ISBN-" + generation + "-" + i);
+                round.add(book);
+                library.addBook(book);
+            }
+            if (generation == 1) {
+                footprint = catalog.footprint();
+            }
+        }
+        assertEquals(10_000, catalog.size());
+        // the free list and compaction keep the columns at the size of one generation
+        assertTrue(catalog.footprint() <= footprint * 2, catalog.footprint() + " > 2 * " + footprint);
+        for (Book book : round) {
+            assertSame(book, library.findBook(book.getISBN()));
+        }
+        Book last = round.get(round.size() - 1);
+        assertEquals("Title 19 9999", last.getTitle());
+        assertEquals("Author 19 99", last.getAuthor());
+    }
+
+    @Test
+    void catalogBacksOneLibrary() {
+        CompactCatalog catalog = new CompactCatalog();
+        library(catalog);
+        assertThrows(IllegalStateException.class, () -> new Library("Other", catalog));
+    }
+
+    @Test
+    void lookupsDuringChurnSeeConsistentBooks() throws Exception {
+        Library library = library(new CompactCatalog(16));
+        Book[] books = new Book[256];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = new Book("Title " + i, "Author " + i % 7, "ISBN-" + i);
+            library.addBook(books[i]);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!done.get()) {
+                    int i = random.nextInt(books.length);
+                    Book found = library.findBook("ISBN-" + i);
+                    if (found != null && found != books[i]) {
+                        errors.add("ISBN-" + i + " found the wrong book");
+                    }
+                    String title = books[i].getTitle();
+                    String author = books[i].getAuthor();
+                    if (!("Title " + i).equals(title) || !("Author " + i % 7).equals(author)) {
+                        errors.add("ISBN-" + i + " read " + title + " by " + author);
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 50_000; i++) {
+            Book book = books[random.nextInt(books.length)];
+            library.removeBook(book);
+            library.addBook(book);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(errors.isEmpty(), () -> errors.size() + " errors, first: " + errors.peek());
+        for (int i = 0; i < books.length; i++) {
+            assertSame(books[i], library.findBook("ISBN-" + i));
+        }
+    }
+
+    private static Library library(CompactCatalog catalog) {
+        Library library = new Library("Compact", catalog);
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        return library;
+    }
+}
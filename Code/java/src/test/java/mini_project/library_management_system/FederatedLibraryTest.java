@@ -0,0 +1,77 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class FederatedLibraryTest {
+
+    @Test
+    void concurrentAddAndRemoveOfOneIdKeepTheShardsInAgreement() throws Exception {
+        FederatedLibrary library = new FederatedLibrary("Federated", 8);
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        User user = new User("Reader", "U-1");
+        for (int round = 0; round < 2_000; round++) {
+            Thread adder = new Thread(() -> library.addUser(user));
+            Thread remover = new Thread(() -> library.removeUser(user));
+            adder.start();
+            remover.start();
+            adder.join();
+            remover.join();
+            User onFirst = library.getShards().get(0).findUser("U-1");
+            for (Library shard : library.getShards()) {
+                assertSame(onFirst, shard.findUser("U-1"), "round " + round);
+            }
+        }
+    }
+
+    @Test
+    void usersAreAnnouncedOnceAndRegisteredEverywhere() {
+        FederatedLibrary library = new FederatedLibrary("Federated", 4);
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        List<String> events = new ArrayList<>();
+        library.addListener(new LibraryListener() {
+            @Override
+            public void userAdded(User user) {
+                events.add("added " + user.getId());
+            }
+
+            @Override
+            public void userRemoved(User user) {
+                events.add("removed " + user.getId());
+            }
+
+            @Override
+            public void message(String text) {
+                events.add(text);
+            }
+        });
+        User user = new User("Reader", "U-1");
+        library.addUser(user);
+        library.addUser(new User("Other", "U-1"));
+        for (Library shard : library.getShards()) {
+            assertSame(user, shard.findUser("U-1"));
+        }
+        library.removeUser(user);
+        assertEquals(List.of("added U-1", "Added user: Reader", "A user with Id U-1 already exists.",
+                "removed U-1", "Removed user: Reader"), events);
+    }
+
+    @Test
+    void limitedSearchIsAPrefixOfTheFullOne() {
+        FederatedLibrary library = new FederatedLibrary("Federated", 4);
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        for (int i = 0; i < 200; i++) {
+            library.addBook(new Book("Title " + i, "Author", "ISBN-" + i));
+        }
+        List<Book> all = library.searchBooks("title");
+        for (int round = 0; round < 20; round++) {
+            assertEquals(all.subList(0, 25), library.searchBooks("title", 25));
+        }
+        assertEquals(all, library.searchBooks("title", 500));
+    }
+}
@@ -0,0 +1,91 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class HoldQueuesTest {
+
+    @Test
+    void queuesNobodyWaitsOnLeaveTheMap() throws Exception {
+        HoldQueues holds = new HoldQueues();
+        Book[] books = new Book[8];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = new Book("Title " + i, "Author", "ISBN-" + i);
+        }
+        AtomicInteger lostHolds = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            User user = new User("User " + t, "U-" + t);
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 50_000; i++) {
+                    Book book = books[random.nextInt(books.length)];
+                    if (holds.place(user, book) && !holds.cancel(user, book)) {
+                        lostHolds.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, lostHolds.get());
+        assertEquals(Set.of(), holds.books());
+    }
+
+    @Test
+    void holdIsUsedUpOnlyByASuccessfulBorrow() {
+        HoldQueues holds = new HoldQueues();
+        Book book = new Book("Title", "Author", "ISBN-1");
+        User first = new User("First", "U-1");
+        User second = new User("Second", "U-2");
+        holds.place(first, book);
+        holds.place(second, book);
+
+        assertFalse(holds.serve(book, user -> true, user -> false));
+        assertEquals(List.of(first, second), holds.holders(book));
+        // a hold being served cannot be cancelled from under the server
+        assertFalse(holds.serve(book, user -> true, user -> holds.cancel(user, book)));
+        assertEquals(List.of(first, second), holds.holders(book));
+
+        assertTrue(holds.serve(book, user -> true, user -> true));
+        assertEquals(List.of(second), holds.holders(book));
+        assertSame(second, holds.next(book, user -> true));
+        assertNull(holds.next(book, user -> true));
+        assertEquals(Set.of(), holds.books());
+    }
+
+    @Test
+    void userReturnsGoThroughTheLibraryToTheNextHolder() {
+        Library library = new Library("Holds");
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        User reader = new User("Reader", "U-1");
+        User waiting = new User("Waiting", "U-2");
+        Book book = new Book("Title", "Author", "ISBN-1");
+        library.addUser(reader);
+        library.addUser(waiting);
+        library.addBook(book);
+
+        assertTrue(reader.borrowBook(book).isSuccess());
+        assertSame(reader, library.getLoans().getLoan(book).getUser());
+        assertEquals(BorrowResult.HOLD_PLACED, library.reserveBook(waiting, book));
+
+        assertTrue(reader.returnBook(book).isSuccess());
+        assertFalse(book.isAvailable());
+        assertEquals(List.of(book), waiting.getBorrowedBooks());
+        assertSame(waiting, library.getLoans().getLoan(book).getUser());
+    }
+}
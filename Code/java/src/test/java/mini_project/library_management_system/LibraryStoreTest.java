@@ -0,0 +1,113 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LibraryStoreTest {
+
+    @Test
+    void logAndSnapshotsRecoverTheLibrary(@TempDir Path dir) throws Exception {
+        try (LibraryStore store = open(dir)) {
+            Library library = store.getLibrary();
+            User reader = new User("Reader", "U-1");
+            User waiting = new User("Waiting", "U-2");
+            library.addUser(reader);
+            library.addUser(waiting);
+            for (int i = 0; i < 10; i++) {
+                library.addBook(new Book("Title " + i, "Author", "ISBN-" + i));
+            }
+            library.borrowBook(reader, library.findBook("ISBN-1"));
+            store.snapshot();
+            library.reserveBook(waiting, library.findBook("ISBN-1"));
+            library.borrowBook(reader, library.findBook("ISBN-2"));
+            library.removeBook(library.findBook("ISBN-9"));
+        }
+
+        try (LibraryStore store = open(dir)) {
+            Library library = store.getLibrary();
+            User reader = library.findUser("U-1");
+            User waiting = library.findUser("U-2");
+            assertNotNull(library.findBook("ISBN-8"));
+            assertNull(library.findBook("ISBN-9"));
+            assertFalse(library.findBook("ISBN-1").isAvailable());
+            assertFalse(library.findBook("ISBN-2").isAvailable());
+            assertEquals(2, reader.getBorrowedBooks().size());
+            assertEquals(List.of(waiting), library.getHolders(library.findBook("ISBN-1")));
+        }
+    }
+
+    @Test
+    void concurrentWritersUnderAlwaysAreAllDurable(@TempDir Path dir) throws Exception {
+        try (LibraryStore store = open(dir, LibraryStore.Durability.ALWAYS)) {
+            Library library = store.getLibrary();
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int writer = t;
+                // each add waits for its fsync after the catalog lock is released, so the writers share fsyncs
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        library.addBook(new Book("Title", "Author", "ISBN-" + writer + "-" + i));
+                    }
+                });
+                thread.start();
+                writers.add(thread);
+            }
+            for (Thread thread : writers) {
+                thread.join();
+            }
+        }
+        try (LibraryStore store = open(dir)) {
+            Library library = store.getLibrary();
+            for (int t = 0; t < 8; t++) {
+                for (int i = 0; i < 100; i++) {
+                    assertNotNull(library.findBook("ISBN-" + t + "-" + i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void recoveryKeepsTheCompactCatalog(@TempDir Path dir) throws Exception {
+        try (LibraryStore store = openCompact(dir)) {
+            for (int i = 0; i < 10; i++) {
+                store.getLibrary().addBook(new Book("Title " + i, "Author", "ISBN-" + i));
+            }
+            store.snapshot();
+            store.getLibrary().addBook(new Book("Logged", "Author", "ISBN-10"));
+        }
+        try (LibraryStore store = openCompact(dir)) {
+            Library library = store.getLibrary();
+            for (int i = 0; i <= 10; i++) {
+                assertTrue(library.findBook("ISBN-" + i).isPacked());
+            }
+            assertEquals("Logged", library.findBook("ISBN-10").getTitle());
+        }
+    }
+
+    private static LibraryStore openCompact(Path dir) throws Exception {
+        LibraryStore store = LibraryStore.open(dir, () -> new Library("Stored", new CompactCatalog()),
+                LibraryStore.Durability.NEVER, 10, 1_000_000);
+        store.getLibrary().removeListener(ConsoleListener.STANDARD_OUT);
+        return store;
+    }
+
+    private static LibraryStore open(Path dir) throws Exception {
+        return open(dir, LibraryStore.Durability.NEVER);
+    }
+
+    private static LibraryStore open(Path dir, LibraryStore.Durability durability) throws Exception {
+        LibraryStore store = LibraryStore.open(dir, "Stored", durability, 10, 1_000_000);
+        store.getLibrary().removeListener(ConsoleListener.STANDARD_OUT);
+        return store;
+    }
+}
@@ -0,0 +1,176 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Many threads borrowing, returning, reserving and cancelling holds on a small catalog
+ * while another thread keeps removing and re-adding books. This exercises the CAS in
+ * {@link Book} and the availability bits of {@link BookSlots} under contention.
+ */
+class LibraryStressTest {
+    private static final int WORKERS = 8;
+    private static final int OPERATIONS = 20_000;
+    private static final int STABLE_BOOKS = 32;
+    private static final int CHURN_BOOKS = 32;
+    private static final int USERS = 64;
+
+    @Test
+    void concurrentLoansStayConsistent() throws Exception {
+        stress(new Library("Stress"));
+    }
+
+    @Test
+    void concurrentLoansStayConsistentOnCompactCatalog() throws Exception {
+        stress(new Library("Stress", new CompactCatalog()));
+    }
+
+    private static void stress(Library library) throws Exception {
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        LoanChecker checker = new LoanChecker();
+        library.addListener(checker);
+
+        List<Book> stable = new ArrayList<>();
+        List<Book> churn = new ArrayList<>();
+        for (int i = 0; i < STABLE_BOOKS; i++) {
+            stable.add(new Book("Stable " + i, "Author " + i, "S-" + i));
+        }
+        for (int i = 0; i < CHURN_BOOKS; i++) {
+            churn.add(new Book("Churn " + i, "Author " + i, "C-" + i));
+        }
+        List<Book> all = new ArrayList<>(stable);
+        all.addAll(churn);
+        all.forEach(library::addBook);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("User " + i, "U-" + i);
+            users.add(user);
+            library.addUser(user);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(WORKERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < WORKERS; w++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        User user = users.get(random.nextInt(USERS));
+                        Book book = all.get(random.nextInt(all.size()));
+                        switch (random.nextInt(4)) {
+                            case 0 -> library.borrowBook(user, book);
+                            case 1 -> library.returnBook(user, book);
+                            case 2 -> library.reserveBook(user, book);
+                            default -> library.cancelHold(user, book);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS / 4; i++) {
+                    Book book = churn.get(random.nextInt(CHURN_BOOKS));
+                    library.removeBook(book);
+                    library.addBook(book);
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTrue(checker.errors.isEmpty(), () -> String.join("\n", checker.errors));
+
+        // nobody shares a book, and a book is borrowed exactly when somebody has it
+        Map<Book, User> holders = new HashMap<>();
+        for (User user : users) {
+            for (Book book : user.getBorrowedBooks()) {
+                User previous = holders.put(book, user);
+                assertNull(previous, () -> book.getISBN() + " is lent to two users");
+            }
+        }
+        for (Book book : all) {
+            assertEquals(!holders.containsKey(book), book.isAvailable(), book.getISBN());
+            assertSame(holders.get(book), checker.owners.get(book), book.getISBN());
+        }
+        for (Book book : stable) {
+            Loan loan = library.getLoans().getLoan(book);
+            User holder = holders.get(book);
+            if (holder == null) {
+                assertNull(loan, book.getISBN());
+            } else {
+                assertSame(holder, loan.getUser(), book.getISBN());
+            }
+        }
+
+        // the availability bits and counters agree with the books themselves
+        Set<Book> available = new HashSet<>();
+        Set<Book> borrowed = new HashSet<>();
+        for (Book book : all) {
+            if (library.findBook(book.getISBN()) == book) {
+                (book.isAvailable() ? available : borrowed).add(book);
+            }
+        }
+        assertEquals(available.size(), library.countAvailable());
+        assertEquals(borrowed.size(), library.countBorrowed());
+        assertEquals(available, toSet(library.availableBooks()));
+        assertEquals(borrowed, toSet(library.borrowedBooks()));
+        assertEquals(available, new HashSet<>(library.getAvaliableBooks()));
+    }
+
+    private static Set<Book> toSet(Iterable<Book> books) {
+        Set<Book> set = new HashSet<>();
+        for (Book book : books) {
+            assertTrue(set.add(book), () -> book.getISBN() + " listed twice");
+        }
+        return set;
+    }
+
+    // listeners run under the book's monitor, so per book they see borrows and returns in order
+    private static final class LoanChecker implements LibraryListener {
+        private final Map<Book, User> owners = new ConcurrentHashMap<>();
+        private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void bookBorrowed(User user, Book book) {
+            User previous = owners.putIfAbsent(book, user);
+            if (previous != null) {
+                errors.add(book.getISBN() + " lent to " + user.getId() + " while " + previous.getId() + " has it");
+            }
+        }
+
+        @Override
+        public void bookReturned(User user, Book book) {
+            if (!owners.remove(book, user)) {
+                errors.add(book.getISBN() + " returned by " + user.getId() + " who did not have it");
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class LoanLedgerTest {
+    private static final long TICK = 1000;
+
+    @Test
+    void loansFallOverdueOnTheirTickAcrossLongJumps() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        Set<Loan> reported = new HashSet<>();
+        LoanLedger ledger = new LoanLedger(clock::get, 0, TICK, loan -> assertTrue(reported.add(loan)));
+        Random random = new Random(42);
+        User user = new User("Reader", "U-1");
+        List<Loan> open = new ArrayList<>();
+        for (int round = 0; round < 2000; round++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                // due anywhere from a second to a few years ahead
+                long due = clock.get() + (long) Math.pow(10, 3 + random.nextDouble() * 8);
+                Book book = new Book("Book", "Author", "ISBN-" + round + "-" + i);
+                open.add(ledger.open(user, book, due));
+            }
+            clock.addAndGet((long) Math.pow(10, random.nextDouble() * 9));
+            ledger.advance();
+            long now = clock.get();
+            for (Loan loan : open) {
+                // a loan is overdue from the first tick that starts after its due time
+                boolean due = loan.getDueMillis() / TICK + 1 <= now / TICK;
+                assertEquals(due, reported.contains(loan), loan::toString);
+            }
+        }
+        assertEquals(reported.size(), ledger.countOverdue());
+    }
+
+    @Test
+    void concurrentLoansOfDifferentBooksStayConsistent() throws Exception {
+        AtomicLong clock = new AtomicLong(0);
+        Set<Loan> reported = ConcurrentHashMap.newKeySet();
+        AtomicInteger reportedTwice = new AtomicInteger();
+        LoanLedger ledger = new LoanLedger(clock::get, 0, TICK, loan -> {
+            if (!reported.add(loan)) {
+                reportedTwice.incrementAndGet();
+            }
+        });
+        User user = new User("Reader", "U-1");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            Thread borrower = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    Book book = new Book("Book", "Author", "ISBN-" + thread + "-" + i);
+                    ledger.open(user, book, clock.get() + TICK * (i % 7));
+                    if (i % 2 == 0) {
+                        ledger.close(book);
+                    }
+                }
+            });
+            borrower.start();
+            threads.add(borrower);
+        }
+        Thread ticker = new Thread(() -> {
+            for (int i = 0; i < 200; i++) {
+                clock.addAndGet(TICK);
+                ledger.advance();
+            }
+        });
+        ticker.start();
+        for (Thread borrower : threads) {
+            borrower.join();
+        }
+        ticker.join();
+
+        assertEquals(40_000, ledger.size());
+        clock.addAndGet(TICK * 100);
+        // every open loan falls due exactly once; a loan closed after it fell due may have been reported too
+        List<Loan> overdue = ledger.overdueLoans();
+        assertEquals(40_000, overdue.size());
+        assertTrue(reported.containsAll(overdue));
+        assertEquals(0, reportedTwice.get());
+        for (Loan loan : overdue) {
+            assertSame(loan, ledger.getLoan(loan.getBook()));
+        }
+    }
+
+    @Test
+    void deletedBooksLeaveTheLedger() {
+        AtomicLong clock = new AtomicLong(0);
+        Library library = new Library("Loans", clock::get, TimeUnit.DAYS.toMillis(14));
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        User user = new User("Reader", "U-1");
+        Book book = new Book("Title", "Author", "ISBN-1");
+        library.addUser(user);
+        library.addBook(book);
+        assertTrue(library.borrowBook(user, book).isSuccess());
+        clock.set(TimeUnit.DAYS.toMillis(30));
+        assertEquals(1, library.overdueLoans().size());
+
+        library.removeBook(book);
+        assertEquals(List.of(), library.overdueLoans());
+        assertEquals(0, library.getLoans().size());
+        assertEquals(List.of(), library.getLoans().loansOf(user));
+    }
+}
@@ -0,0 +1,38 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PopularityTrackerTest {
+
+    @Test
+    void bufferedEventsAllReachTheSummary() throws Exception {
+        // room for every key, so the summary counts exactly
+        PopularityTracker tracker = new PopularityTracker(64, 1024, 0, () -> 0);
+        int threads = 8;
+        int perThread = 100_003;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    tracker.record("key-" + i % 10);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long total = 0;
+        for (PopularityTracker.Entry entry : tracker.top(10)) {
+            assertEquals(0, entry.getError(), entry::toString);
+            total += entry.getCount();
+        }
+        assertEquals((long) threads * perThread, total);
+    }
+}
@@ -0,0 +1,62 @@
+package mini_project.library_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTest {
+
+    @Test
+    void pagingSurvivesSeveralCompactions() {
+        Library library = new Library("Paging");
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        List<Book> kept = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Book book = new Book(i % 10 == 0 ? "Kept " + i : "Filler " + i, "Author", "ISBN-" + i);
+            library.addBook(book);
+            if (i % 10 == 0) {
+                kept.add(book);
+            }
+        }
+
+        List<Book> seen = new ArrayList<>();
+        Page<Book> page = library.searchBooks("kept", 100, null);
+        seen.addAll(page.getItems());
+        // dropping every filler compacts the index three times before the next page
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 10 != 0) {
+                library.removeBook(library.findBook("ISBN-" + i));
+            }
+        }
+        while (page.getContinuationToken() != null) {
+            page = library.searchBooks("kept", 100, page.getContinuationToken());
+            seen.addAll(page.getItems());
+        }
+        assertEquals(kept, seen);
+        assertNull(page.getContinuationToken());
+    }
+
+    @Test
+    void queriesOfShortWordsFindBooksThroughTheTrie() {
+        Library library = new Library("Short");
+        library.removeListener(ConsoleListener.STANDARD_OUT);
+        Book go = new Book("Go in Practice", "Author", "ISBN-1");
+        Book goTwo = new Book("Go", "Go Team", "ISBN-2");
+        Book gopher = new Book("Gopher Tales", "Author", "ISBN-3");
+        library.addBook(go);
+        library.addBook(goTwo);
+        library.addBook(gopher);
+
+        // only whole words count, "gopher" merely contains the query
+        assertEquals(List.of(go, goTwo), library.fuzzySearch("go", 2));
+        assertEquals(List.of(go), library.fuzzySearch("go in", 2));
+
+        library.removeBook(go);
+        assertEquals(List.of(goTwo), library.fuzzySearch("GO", 2));
+        assertEquals(List.of(), library.fuzzySearch("in", 2));
+    }
+}
@@ -0,0 +1,34 @@
+package mini_project.task_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentTaskManagerTest {
+
+    @Test
+    void completionBetweenReadingTheFlagAndPublishingIsKept() {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        // the completion lands right after addTask has read the flag and before it publishes the task
+        Task task = new Task("Raced", "Completed during the add") {
+            private boolean raced;
+
+            @Override
+            public boolean isCompleted() {
+                boolean completed = super.isCompleted();
+                if (!raced) {
+                    raced = true;
+                    setCompleted(true);
+                }
+                return completed;
+            }
+        };
+        manager.addTask(task);
+
+        ConcurrentTaskManager.Snapshot snapshot = manager.snapshot();
+        assertTrue(snapshot.isCompleted(task));
+        assertEquals(0, snapshot.countPending());
+        assertEquals(1, snapshot.countCompleted());
+    }
+}
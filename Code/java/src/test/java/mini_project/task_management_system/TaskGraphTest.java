@@ -0,0 +1,80 @@
+package mini_project.task_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class TaskGraphTest {
+
+    @Test
+    void errorInWorkFailsTheTaskAndCancelsDownstream() {
+        Task broken = new Task("Broken", "Throws an Error", () -> {
+            throw new StackOverflowError("simulated");
+        });
+        Task after = new Task("After", "Depends on the broken one", () -> { });
+        TaskGraph graph = new TaskGraph();
+        graph.addDependency(after, broken);
+        ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable);
+            // the graph rethrows the Error once it is accounted for; it is expected here
+            thread.setUncaughtExceptionHandler((t, e) -> { });
+            return thread;
+        });
+        try {
+            TaskGraph.GraphResult result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> graph.execute(executor).await());
+            assertEquals(0, result.getCompleted());
+            assertEquals(1, result.getFailed());
+            assertEquals(1, result.getCancelled());
+            assertFalse(after.isCompleted());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void taskTheManagerRefusesIsNotAddedToTheGraph() {
+        Task foreign = new Task("Foreign", "Owned elsewhere");
+        new TaskManager().addTask(foreign);
+        TaskManager manager = new TaskManager();
+        TaskGraph graph = new TaskGraph(manager);
+        assertThrows(IllegalArgumentException.class, () -> graph.addTask(foreign));
+        assertEquals(0, graph.size());
+        assertEquals(0, manager.size());
+    }
+
+    @Test
+    void successorTheExecutorRejectsIsCancelled() {
+        Task first = new Task("First", "Runs inline", () -> { });
+        Task second = new Task("Second", "Rejected", () -> { });
+        Task third = new Task("Third", "Downstream of the rejected one", () -> { });
+        TaskGraph graph = new TaskGraph();
+        graph.addDependency(second, first);
+        graph.addDependency(third, second);
+        AtomicInteger accepted = new AtomicInteger();
+        // runs the first task on the caller, then behaves like a pool that was shut down
+        Executor executor = command -> {
+            if (accepted.getAndIncrement() > 0) {
+                throw new RejectedExecutionException("shut down");
+            }
+            command.run();
+        };
+        TaskGraph.GraphResult result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> graph.execute(executor).await());
+        assertEquals(1, result.getCompleted());
+        assertEquals(2, result.getCancelled());
+        assertTrue(first.isCompleted());
+        assertFalse(second.isCompleted());
+    }
+}
@@ -0,0 +1,32 @@
+package mini_project.task_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TaskManagerTest {
+
+    @Test
+    void completionWaitingForTheMonitorDoesNotRestoreARemovedTask() throws Exception {
+        TaskManager manager = new TaskManager();
+        Task task = new Task("Removed", "Completed while being removed");
+        manager.addTask(task);
+        Thread completer = new Thread(() -> task.setCompleted(true));
+        synchronized (manager) {
+            completer.start();
+            // the flag is flipped outside the monitor, then the completer blocks on completionChanged
+            while (completer.getState() != Thread.State.BLOCKED) {
+                Thread.onSpinWait();
+            }
+            manager.removeTask(task);
+        }
+        completer.join();
+
+        assertEquals(0, manager.size());
+        assertEquals(0, manager.countPending());
+        assertEquals(0, manager.countCompleted());
+        assertEquals(List.of(), manager.getCompletedTasks());
+    }
+}
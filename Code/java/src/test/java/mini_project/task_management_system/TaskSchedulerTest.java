@@ -0,0 +1,75 @@
+package mini_project.task_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+class TaskSchedulerTest {
+
+    @Test
+    void rejectedTaskGivesItsPermitBack() throws Exception {
+        TaskManager manager = new TaskManager();
+        Task foreign = new Task("Foreign", "Owned elsewhere");
+        new TaskManager().addTask(foreign);
+        try (TaskScheduler scheduler = new TaskScheduler(manager, 1, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> scheduler.submit(foreign));
+            // the only permit would be gone if the failed add had kept it
+            assertTrue(scheduler.trySubmit(new Task("Plain", "Fits"), 1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void workThatThrowsAnErrorCountsAsFailed() throws Exception {
+        TaskManager manager = new TaskManager();
+        Task task = new Task("Broken", "Throws an Error", () -> {
+            throw new StackOverflowError("simulated");
+        });
+        TaskScheduler scheduler = new TaskScheduler(manager, 1, 4);
+        scheduler.submit(task);
+        scheduler.close();
+        TaskScheduler.SchedulerStats stats = scheduler.stats();
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getCompleted());
+        assertEquals(1, manager.countPending());
+    }
+
+    @Test
+    void everyTaskFromManyProducersRunsOnce() throws Exception {
+        ConcurrentTaskManager manager = new ConcurrentTaskManager();
+        LongAdder runs = new LongAdder();
+        TaskScheduler scheduler = new TaskScheduler(manager, 4, 64);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 5_000; i++) {
+                        scheduler.submit(new Task("Job", "", runs::increment));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        scheduler.close();
+
+        assertEquals(20_000, runs.sum());
+        assertEquals(20_000, manager.countCompleted());
+        assertEquals(0, scheduler.getQueued());
+        TaskScheduler.SchedulerStats stats = scheduler.stats();
+        assertEquals(20_000, stats.getCompleted());
+        assertTrue(stats.getQueueWaitPercentileNanos(50) <= stats.getQueueWaitPercentileNanos(99));
+        assertTrue(stats.getQueueWaitPercentileNanos(99) <= stats.getMaxQueueWaitNanos());
+    }
+}
@@ -0,0 +1,76 @@
+package mini_project.task_management_system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import mini_project.journal.Journal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TaskStoreTest {
+
+    @Test
+    void tasksSurviveAReopenAcrossManySegments(@TempDir Path dir) throws Exception {
+        List<String> titles = new ArrayList<>();
+        try (TaskStore store = TaskStore.open(dir, TaskStore.Durability.ALWAYS, 10, 512, 1000)) {
+            for (int i = 0; i < 200; i++) {
+                Task task = new Task("Task " + i, "Description " + i);
+                store.getManager().addTask(task);
+                if (i % 3 == 0) {
+                    store.getManager().markTaskAsCompleted(task);
+                }
+                titles.add(task.getTitle());
+            }
+        }
+        // every change is flushed on its own and segments are small, so many of them were sealed
+        assertTrue(Journal.segments(dir, "segment").size() > 10);
+
+        try (TaskStore store = TaskStore.open(dir)) {
+            List<String> recovered = new ArrayList<>();
+            for (Task task : store.getManager().getAllTasks()) {
+                recovered.add(task.getTitle());
+            }
+            assertEquals(titles, recovered);
+            assertEquals(67, store.getManager().countCompleted());
+
+            store.compact();
+        }
+        try (TaskStore store = TaskStore.open(dir)) {
+            assertEquals(200, store.getManager().size());
+            assertEquals(67, store.getManager().countCompleted());
+        }
+    }
+
+    @Test
+    void concurrentWritersUnderAlwaysAreAllDurable(@TempDir Path dir) throws Exception {
+        try (TaskStore store = TaskStore.open(dir, TaskStore.Durability.ALWAYS, 10, 64L << 20, 1000)) {
+            TaskManager manager = store.getManager();
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                // each change waits for its fsync after the manager's monitor is released, so the writers share fsyncs
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        Task task = new Task("Task " + i, "Description " + i);
+                        manager.addTask(task);
+                        if (i % 2 == 0) {
+                            manager.markTaskAsCompleted(task);
+                        }
+                    }
+                });
+                thread.start();
+                writers.add(thread);
+            }
+            for (Thread thread : writers) {
+                thread.join();
+            }
+        }
+        try (TaskStore store = TaskStore.open(dir)) {
+            assertEquals(800, store.getManager().size());
+            assertEquals(400, store.getManager().countCompleted());
+        }
+    }
+}